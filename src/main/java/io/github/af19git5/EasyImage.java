@@ -1,6 +1,9 @@
 package io.github.af19git5;
 
+import io.github.af19git5.builder.BatchBuilder;
 import io.github.af19git5.builder.ImageBuilder;
+import io.github.af19git5.builder.ImageTemplate;
+import io.github.af19git5.exception.ImageException;
 
 import java.awt.*;
 
@@ -42,4 +45,22 @@ public class EasyImage {
     public static ImageBuilder init(int width, int height, String backgroundColorHex) {
         return new ImageBuilder(width, height, backgroundColorHex);
     }
+
+    /**
+     * 初始化批次繪製
+     *
+     * @param template 繪製樣板
+     */
+    public static BatchBuilder batch(ImageTemplate template) {
+        return new BatchBuilder(template);
+    }
+
+    /**
+     * 初始化批次繪製
+     *
+     * @param imageBuilder 圖片建構器(會先編譯為樣板)
+     */
+    public static BatchBuilder batch(ImageBuilder imageBuilder) throws ImageException {
+        return new BatchBuilder(imageBuilder.compile());
+    }
 }
@@ -0,0 +1,247 @@
+package io.github.af19git5.builder;
+
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.type.EncoderOptions;
+import io.github.af19git5.type.OutputType;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 批次繪製建構器
+ *
+ * <p>以同一份樣板繪製大量不同內容的圖片，繪製及編碼會分散至多個執行緒執行。單一項目失敗不會中斷批次，失敗項目會記錄於{@link BatchResult}
+ *
+ * @author Jimmy Kang
+ */
+public class BatchBuilder {
+
+    private final ImageTemplate template;
+
+    /** 輸出格式 */
+    private OutputType outputType = OutputType.PNG;
+
+    /** 編碼參數 */
+    private EncoderOptions encoderOptions = EncoderOptions.DEFAULT;
+
+    /** 同時繪製數量 */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** 最多同時存在(排隊中及繪製中)的項目數量，未設定時與同時繪製數量相同 */
+    private int maxInFlight = 0;
+
+    /** 自訂執行緒池，未設定時由批次自行建立並於結束後關閉 */
+    private Executor executor;
+
+    /**
+     * @param template 繪製樣板
+     */
+    public BatchBuilder(@NonNull ImageTemplate template) {
+        this.template = template;
+    }
+
+    public BatchBuilder setOutputType(@NonNull OutputType outputType) {
+        this.outputType = outputType;
+        return this;
+    }
+
+    public BatchBuilder setEncoderOptions(@NonNull EncoderOptions encoderOptions) {
+        this.encoderOptions = encoderOptions;
+        return this;
+    }
+
+    /**
+     * 設定同時繪製數量
+     *
+     * <p>僅用於批次自行建立的執行緒池及未設定{@link #setMaxInFlight(int)}時的同時存在項目數量，設定自訂執行緒池時實際同時繪製數量由該執行緒池決定
+     *
+     * @param parallelism 同時繪製數量
+     */
+    public BatchBuilder setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("同時繪製數量需大於0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public BatchBuilder setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("同時存在項目數量需大於0");
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * 設定自訂執行緒池
+     *
+     * <p>設定後{@link #setParallelism(int)}不再決定執行緒數量，批次結束後亦不會關閉此執行緒池
+     *
+     * @param executor 執行緒池
+     */
+    public BatchBuilder setExecutor(@NonNull Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 執行批次繪製
+     *
+     * <p>輸入資料會依序讀取，當同時存在的項目達到上限時會暫停讀取，直到有項目完成
+     *
+     * @param inputs 輸入資料
+     * @param slotMapper 將輸入資料轉為樣板欄位內容
+     * @param output 取得輸入資料對應的輸出流，寫出完成後會自動關閉
+     * @return 批次結果
+     */
+    public <T> BatchResult<T> run(
+            @NonNull Stream<T> inputs,
+            @NonNull Function<T, Map<String, String>> slotMapper,
+            @NonNull BatchOutput<T> output)
+            throws ImageException {
+        int permits = this.maxInFlight > 0 ? this.maxInFlight : this.parallelism;
+        ExecutorService ownExecutor =
+                null == this.executor ? createExecutor(this.parallelism) : null;
+        Executor runExecutor = null == ownExecutor ? this.executor : ownExecutor;
+
+        Semaphore semaphore = new Semaphore(permits);
+        AtomicLong successCount = new AtomicLong();
+        Queue<BatchFailure<T>> failures = new ConcurrentLinkedQueue<>();
+        boolean drained = false;
+        try {
+            Iterator<T> iterator = inputs.iterator();
+            while (iterator.hasNext()) {
+                T input = iterator.next();
+                semaphore.acquire();
+                try {
+                    runExecutor.execute(
+                            () -> {
+                                try {
+                                    renderItem(input, slotMapper, output);
+                                    successCount.incrementAndGet();
+                                } catch (Exception e) {
+                                    failures.add(new BatchFailure<>(input, e));
+                                } catch (Throwable e) {
+                                    // Error同樣記錄為失敗，不於執行緒池內拋出以免終止工作執行緒
+                                    failures.add(
+                                            new BatchFailure<>(input, new ExecutionException(e)));
+                                } finally {
+                                    semaphore.release();
+                                }
+                            });
+                } catch (RejectedExecutionException e) {
+                    semaphore.release();
+                    failures.add(new BatchFailure<>(input, e));
+                }
+            }
+            // 等待所有項目完成
+            semaphore.acquire(permits);
+            drained = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageException(e);
+        } finally {
+            if (!drained) {
+                // 讀取輸入資料失敗或被中斷時，仍需等待已送出的項目結束
+                semaphore.acquireUninterruptibly(permits);
+            }
+            if (null != ownExecutor) {
+                ownExecutor.shutdown();
+            }
+        }
+        return new BatchResult<>(successCount.get(), new ArrayList<>(failures));
+    }
+
+    private <T> void renderItem(
+            T input, Function<T, Map<String, String>> slotMapper, BatchOutput<T> output)
+            throws ImageException, IOException {
+        Map<String, String> slotValues = slotMapper.apply(input);
+        try (OutputStream outputStream = output.open(input)) {
+            this.template.buildOutputStream(
+                    this.outputType,
+                    this.encoderOptions,
+                    null == slotValues ? Collections.emptyMap() : slotValues,
+                    outputStream);
+        }
+    }
+
+    private static ExecutorService createExecutor(int parallelism) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(
+                parallelism,
+                runnable -> {
+                    Thread thread =
+                            new Thread(
+                                    runnable, "easy-image-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 批次輸出目的地
+     *
+     * @author Jimmy Kang
+     */
+    @FunctionalInterface
+    public interface BatchOutput<T> {
+
+        /**
+         * 開啟輸入資料對應的輸出流
+         *
+         * @param input 輸入資料
+         * @return 輸出流
+         */
+        OutputStream open(T input) throws IOException;
+    }
+
+    /**
+     * 批次結果
+     *
+     * @author Jimmy Kang
+     */
+    @Getter
+    public static class BatchResult<T> {
+
+        /** 成功數量 */
+        private final long successCount;
+
+        /** 失敗項目 */
+        private final List<BatchFailure<T>> failures;
+
+        public BatchResult(long successCount, List<BatchFailure<T>> failures) {
+            this.successCount = successCount;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+    }
+
+    /**
+     * 批次失敗項目
+     *
+     * @author Jimmy Kang
+     */
+    @Getter
+    public static class BatchFailure<T> {
+
+        /** 輸入資料 */
+        private final T input;
+
+        /** 錯誤，Error會包裝為{@link ExecutionException} */
+        private final Exception exception;
+
+        public BatchFailure(T input, Exception exception) {
+            this.input = input;
+            this.exception = exception;
+        }
+    }
+}
@@ -1,32 +1,39 @@
 package io.github.af19git5.builder;
 
+import io.github.af19git5.builder.ImageRenderer.DrawItem;
 import io.github.af19git5.entity.*;
+import io.github.af19git5.entity.Composite;
 import io.github.af19git5.entity.Image;
 import io.github.af19git5.entity.Rectangle;
 import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.io.ByteBufferAllocator;
+import io.github.af19git5.type.EncoderOptions;
 import io.github.af19git5.type.OutputType;
+import io.github.af19git5.type.PixelFormat;
 import io.github.af19git5.type.PositionX;
 import io.github.af19git5.type.PositionY;
 import io.github.af19git5.utils.ColorUtils;
+import io.github.af19git5.utils.ImageWriteUtils;
+import io.github.af19git5.utils.PngEncoder;
 
 import lombok.Getter;
-import lombok.Setter;
+import lombok.NonNull;
 
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.Rectangle2D;
-import java.awt.geom.RoundRectangle2D;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-
-import javax.imageio.ImageIO;
+import java.util.Set;
 
 /**
  * 圖片建構器
@@ -35,14 +42,32 @@ import javax.imageio.ImageIO;
  */
 public class ImageBuilder {
 
-    private final int width;
+    /** 目前執行緒繪製中的組合物件建構器，用於檢查組合物件是否包含自身 */
+    private static final ThreadLocal<Set<ImageBuilder>> RENDERING_COMPOSITES =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    /** 圖片寬 */
+    @Getter private final int width;
 
-    private final int height;
+    /** 圖片高 */
+    @Getter private final int height;
 
-    private final Color backgroundColor;
+    private final ImageRenderer renderer;
 
     private final List<ImageItem> itemList = new ArrayList<>();
 
+    /** 畫布像素格式 */
+    private PixelFormat pixelFormat = PixelFormat.AUTO;
+
+    /** 分段繪製高度(0為不分段) */
+    private int bandHeight;
+
+    /** 平行繪製分段數(1為不平行繪製) */
+    private int renderParallelism = 1;
+
+    /** 靜態物件底圖快取 */
+    private BaseLayer baseLayer;
+
     /**
      * @param width 圖片寬
      * @param height 圖片高
@@ -59,7 +84,7 @@ public class ImageBuilder {
     public ImageBuilder(int width, int height, Color backgroundColor) {
         this.width = width;
         this.height = height;
-        this.backgroundColor = backgroundColor;
+        this.renderer = new ImageRenderer(width, height, backgroundColor);
     }
 
     /**
@@ -263,6 +288,95 @@ public class ImageBuilder {
         return this;
     }
 
+    /**
+     * 加入組合物件
+     *
+     * @param x x軸位置
+     * @param y y軸位置
+     * @param composite 組合物件
+     */
+    public ImageBuilder add(int x, int y, Composite composite) {
+        this.itemList.add(new ImageItem(x, y, PositionX.NONE, PositionY.NONE, composite));
+        return this;
+    }
+
+    /**
+     * 加入組合物件
+     *
+     * @param positionX x軸定位
+     * @param y y軸位置
+     * @param composite 組合物件
+     */
+    public ImageBuilder add(PositionX positionX, int y, Composite composite) {
+        this.itemList.add(new ImageItem(0, y, positionX, PositionY.NONE, composite));
+        return this;
+    }
+
+    /**
+     * 加入組合物件
+     *
+     * @param x x軸位置
+     * @param positionY y軸定位
+     * @param composite 組合物件
+     */
+    public ImageBuilder add(int x, PositionY positionY, Composite composite) {
+        this.itemList.add(new ImageItem(x, 0, PositionX.NONE, positionY, composite));
+        return this;
+    }
+
+    /**
+     * 加入組合物件
+     *
+     * @param positionX x軸定位
+     * @param positionY y軸定位
+     * @param composite 組合物件
+     */
+    public ImageBuilder add(PositionX positionX, PositionY positionY, Composite composite) {
+        this.itemList.add(new ImageItem(0, 0, positionX, positionY, composite));
+        return this;
+    }
+
+    /**
+     * 設定畫布像素格式，預設依輸出格式自動選擇
+     *
+     * @param pixelFormat 像素格式
+     */
+    public ImageBuilder setPixelFormat(@NonNull PixelFormat pixelFormat) {
+        this.pixelFormat = pixelFormat;
+        return this;
+    }
+
+    /**
+     * 設定分段繪製高度，適用於超大畫布
+     *
+     * <p>設定後輸出PNG時由上而下逐段繪製，每段繪製完成後直接編碼輸出，不需建立完整畫布，畫布的記憶體用量僅與分段大小有關。
+     * 圖片及組合物件仍會於繪製前以完整大小解碼(或繪製)並保留至輸出完成。分段繪製僅支援PNG輸出，且{@link #render()}仍會建立完整畫布
+     *
+     * @param bandHeight 每段高度(0為不分段)
+     */
+    public ImageBuilder setBandHeight(int bandHeight) {
+        if (bandHeight < 0) {
+            throw new IllegalArgumentException("分段高度不可小於0");
+        }
+        this.bandHeight = bandHeight;
+        return this;
+    }
+
+    /**
+     * 設定平行繪製分段數，適用於大型且物件眾多的畫布
+     *
+     * <p>大於1時畫布切分為水平分段，於ForkJoinPool.commonPool()平行繪製，各分段僅繪製與其相交的物件。跨越分段的曲線邊緣抗鋸齒可能與單執行緒繪製有些微差異
+     *
+     * @param renderParallelism 分段數(1為不平行繪製)
+     */
+    public ImageBuilder setRenderParallelism(int renderParallelism) {
+        if (renderParallelism <= 0) {
+            throw new IllegalArgumentException("平行繪製數量需大於0");
+        }
+        this.renderParallelism = renderParallelism;
+        return this;
+    }
+
     /**
      * 建立至輸出流
      *
@@ -271,15 +385,28 @@ public class ImageBuilder {
      */
     public void buildOutputStream(OutputType outputType, OutputStream outputStream)
             throws ImageException {
-        BufferedImage bufferedImage =
-                new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = buildGraphics2D(bufferedImage);
+        buildOutputStream(outputType, EncoderOptions.DEFAULT, outputStream);
+    }
+
+    /**
+     * 建立至輸出流
+     *
+     * @param outputType 輸出類別
+     * @param options 編碼參數
+     * @param outputStream 輸出流
+     */
+    public void buildOutputStream(
+            OutputType outputType, @NonNull EncoderOptions options, OutputStream outputStream)
+            throws ImageException {
+        if (this.bandHeight > 0) {
+            buildBands(outputType, options, outputStream);
+            return;
+        }
+        BufferedImage bufferedImage = renderFrame(outputType.isAlpha()).getImage();
         try {
-            ImageIO.write(bufferedImage, outputType.getType(), outputStream);
+            ImageWriteUtils.write(bufferedImage, outputType, options, outputStream);
         } catch (IOException e) {
             throw new ImageException(e);
-        } finally {
-            graphics.dispose();
         }
     }
 
@@ -290,12 +417,77 @@ public class ImageBuilder {
      * @return base64圖檔
      */
     public byte[] buildBytes(OutputType outputType) throws ImageException {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            buildOutputStream(outputType, outputStream);
-            return outputStream.toByteArray();
-        } catch (IOException e) {
-            throw new ImageException(e);
-        }
+        return buildBytes(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return 圖檔byte陣列
+     */
+    public byte[] buildBytes(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        return ImageOutput.toBytes(
+                outputStream -> buildOutputStream(outputType, options, outputStream));
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(OutputType outputType, WritableByteChannel channel)
+            throws ImageException {
+        buildTo(outputType, EncoderOptions.DEFAULT, channel);
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull WritableByteChannel channel)
+            throws ImageException {
+        ImageOutput.toChannel(
+                outputStream -> buildOutputStream(outputType, options, outputStream), channel);
+    }
+
+    /**
+     * 建立heap緩衝區
+     *
+     * @param outputType 輸出格式
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(OutputType outputType) throws ImageException {
+        return buildByteBuffer(outputType, EncoderOptions.DEFAULT, ByteBufferAllocator.HEAP);
+    }
+
+    /**
+     * 建立緩衝區，編碼結果直接寫入由配置器取得的緩衝區(可使用緩衝區池)，使用完畢後由呼叫端交還配置器
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param allocator 緩衝區配置器
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull ByteBufferAllocator allocator)
+            throws ImageException {
+        return ImageOutput.toByteBuffer(
+                outputStream -> buildOutputStream(outputType, options, outputStream),
+                allocator,
+                this.width,
+                this.height);
     }
 
     /**
@@ -305,7 +497,110 @@ public class ImageBuilder {
      * @return base64圖檔
      */
     public String buildBase64(OutputType outputType) throws ImageException {
-        return Base64.getEncoder().encodeToString(buildBytes(outputType));
+        return buildBase64(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立base64圖檔
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return base64圖檔
+     */
+    public String buildBase64(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendBase64(outputType, options, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立base64圖檔至輸出流，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildBase64(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toBase64(
+                base64OutputStream -> buildOutputStream(outputType, options, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立base64圖檔並附加至目標，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendBase64(
+            OutputType outputType, @NonNull EncoderOptions options, @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendBase64(
+                outputStream -> buildOutputStream(outputType, options, outputStream), appendable);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @return data URI
+     */
+    public String buildDataUri(OutputType outputType) throws ImageException {
+        return buildDataUri(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return data URI
+     */
+    public String buildDataUri(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendDataUri(outputType, options, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立data URI至輸出流
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildDataUri(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toDataUri(
+                outputType,
+                base64OutputStream -> buildOutputStream(outputType, options, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立data URI並附加至目標
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendDataUri(
+            OutputType outputType, @NonNull EncoderOptions options, @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendDataUri(
+                outputType,
+                outputStream -> buildOutputStream(outputType, options, outputStream),
+                appendable);
     }
 
     /**
@@ -315,496 +610,331 @@ public class ImageBuilder {
      * @param file 輸出檔案位置
      */
     public void buildFile(OutputType outputType, File file) throws ImageException {
-        BufferedImage bufferedImage =
-                new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D graphics = buildGraphics2D(bufferedImage);
-        try {
-            ImageIO.write(bufferedImage, outputType.getType(), file);
-        } catch (IOException e) {
-            throw new ImageException(e);
-        } finally {
-            graphics.dispose();
-        }
+        buildFile(outputType, EncoderOptions.DEFAULT, file);
     }
 
-    private Graphics2D buildGraphics2D(BufferedImage bufferedImage) {
-        Graphics2D graphics = bufferedImage.createGraphics();
-        graphics.setColor(this.backgroundColor);
-        graphics.fillRect(0, 0, this.width, this.height);
-        // 加入抗鋸齒
-        graphics.setRenderingHint(
-                RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // 組出要繪製物件
-        List<DrawItem> drawItemList = new ArrayList<>();
-        for (ImageItem imageItem : this.itemList) {
-            if (imageItem.getItem() instanceof Text) {
-                drawItemList.addAll(buildDrawTextItem(graphics, imageItem));
-            } else if (imageItem.getItem() instanceof Image) {
-                drawItemList.add(buildDrawImageItem(graphics, imageItem));
-            } else if (imageItem.getItem() instanceof Rectangle) {
-                drawItemList.add(buildDrawRectangleItem(graphics, imageItem));
-            } else if (imageItem.getItem() instanceof Ellipse) {
-                drawItemList.add(buildDrawEllipseItem(graphics, imageItem));
+    /**
+     * 建立至檔案
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param file 輸出檔案位置
+     */
+    public void buildFile(OutputType outputType, @NonNull EncoderOptions options, File file)
+            throws ImageException {
+        if (this.bandHeight > 0) {
+            try (OutputStream outputStream =
+                    new BufferedOutputStream(new FileOutputStream(file))) {
+                buildBands(outputType, options, outputStream);
+            } catch (IOException e) {
+                throw new ImageException(e);
             }
+            return;
         }
-
-        // 執行繪製物件
-        for (DrawItem drawItem : drawItemList) {
-            if (drawItem instanceof DrawTextItem) {
-                drawTextItem(graphics, (DrawTextItem) drawItem);
-            } else if (drawItem instanceof DrawImageItem) {
-                drawImageItem(graphics, (DrawImageItem) drawItem);
-            } else if (drawItem instanceof DrawRectangleItem) {
-                drawRectangleItem(graphics, (DrawRectangleItem) drawItem);
-            } else if (drawItem instanceof DrawEllipseItem) {
-                drawEllipseItem(graphics, (DrawEllipseItem) drawItem);
-            }
+        BufferedImage bufferedImage = renderFrame(outputType.isAlpha()).getImage();
+        try {
+            ImageWriteUtils.write(bufferedImage, outputType, options, file);
+        } catch (IOException e) {
+            throw new ImageException(e);
         }
-        return graphics;
     }
 
-    /** 建立要繪製的圖片項目 */
-    private DrawImageItem buildDrawImageItem(Graphics2D graphics, ImageItem imageItem) {
-        Image image = (Image) imageItem.getItem();
-        int imageWidth, imageHeight;
-        if (image.getWidth() > 0) {
-            imageWidth = image.getWidth();
-        } else {
-            imageWidth = image.getBufferedImage().getWidth();
-        }
+    /**
+     * 繪製為畫面，可重複輸出為多種格式或縮放為多種大小，不需重新繪製
+     *
+     * <p>像素格式為AUTO時保留透明度
+     *
+     * @return 繪製完成的畫面
+     */
+    public RenderedFrame render() throws ImageException {
+        return renderFrame(true);
+    }
 
-        if (image.getHeight() > 0) {
-            imageHeight = image.getHeight();
-        } else {
-            imageHeight = image.getBufferedImage().getHeight();
-        }
+    /**
+     * 編譯為繪製樣板
+     *
+     * <p>非樣板欄位的物件會在編譯時完成排版，之後每次繪製只需填入各文字欄位的內容。編譯後的樣板不可變動，可於多執行緒同時繪製
+     *
+     * @return 繪製樣板
+     */
+    public ImageTemplate compile() throws ImageException {
+        return new ImageTemplate(this.renderer, this.pixelFormat, this.itemList);
+    }
 
-        DrawImageItem drawImageItem = new DrawImageItem();
-        switch (imageItem.getPositionX()) {
-            case LEFT:
-                drawImageItem.setX(0);
-                break;
-            case RIGHT:
-                drawImageItem.setX(this.width - imageWidth);
-                break;
-            case MIDDLE:
-                drawImageItem.setX((this.width - imageWidth) / 2);
-                break;
-            default:
-                drawImageItem.setX(imageItem.getX());
-                break;
-        }
-        switch (imageItem.getPositionY()) {
-            case TOP:
-                drawImageItem.setY(0);
-                break;
-            case BOTTOM:
-                drawImageItem.setY(this.height - imageHeight);
-                break;
-            case MIDDLE:
-                drawImageItem.setY((this.height - imageHeight) / 2);
-                break;
-            default:
-                drawImageItem.setY(imageItem.getY());
-                break;
+    /**
+     * 繪製為組合物件使用的圖片(保留透明度)
+     *
+     * @return 繪製結果
+     */
+    BufferedImage renderComposite() throws ImageException {
+        Set<ImageBuilder> rendering = RENDERING_COMPOSITES.get();
+        if (!rendering.add(this)) {
+            throw new ImageException("組合物件不可直接或間接包含自身");
         }
-
-        if (image.getHeight() > 0 && image.getWidth() > 0) {
-            drawImageItem.setImage(
-                    image.getBufferedImage()
-                            .getScaledInstance(
-                                    imageWidth, imageHeight, java.awt.Image.SCALE_DEFAULT));
-        } else {
-            drawImageItem.setImage(image.getBufferedImage());
+        try {
+            return renderFrame(true).getImage();
+        } finally {
+            rendering.remove(this);
         }
-        return drawImageItem;
     }
 
-    /** 繪製圖片項目 */
-    private void drawImageItem(Graphics2D graphics, DrawImageItem drawImageItem) {
-        graphics.drawImage(
-                drawImageItem.getImage(), drawImageItem.getX(), drawImageItem.getY(), null);
+    /**
+     * 取得內容識別，畫布設定及所有物件內容相同時識別相等，可作為快取鍵值
+     *
+     * @return 內容識別，包含無法識別內容的物件時為null
+     */
+    Object getContentKey() throws ImageException {
+        return getContentKey(Collections.newSetFromMap(new IdentityHashMap<>()));
     }
 
-    /** 建立要繪製的文字項目 */
-    private List<DrawItem> buildDrawTextItem(Graphics2D graphics, ImageItem imageItem) {
-        Text text = (Text) imageItem.getItem();
-
-        if (null == text.getFont()) {
-            text.setFont(graphics.getFont());
-        }
-
-        List<String> textStringList;
-        if (text.getIsAutoScaledFont()) {
-            // 覆寫字體大小
-            textStringList = Arrays.asList(text.getText().split("\n"));
-            text.setFont(
-                    text.getFont().deriveFont(Float.valueOf(getAutoScaleFontSize(graphics, text))));
-        } else {
-            // 切分文字陣列
-            textStringList = cutText(graphics, text);
-        }
-
-        graphics.setFont(text.getFont());
-        FontMetrics fontMetrics = graphics.getFontMetrics();
-        int textHeight = fontMetrics.getHeight();
-        // 取得文字框最長寬度
-        int maxTextWidth = 0;
-        if (text.getWidth() > 0) {
-            maxTextWidth = text.getWidth();
-        } else {
-            for (String textString : textStringList) {
-                maxTextWidth = Math.max(maxTextWidth, fontMetrics.stringWidth(textString));
-            }
+    /**
+     * @param visiting 計算中的建構器，用於檢查組合物件是否包含自身
+     */
+    private Object getContentKey(Set<ImageBuilder> visiting) throws ImageException {
+        if (!visiting.add(this)) {
+            throw new ImageException("組合物件不可直接或間接包含自身");
         }
-
-        List<DrawItem> drawItemList = new ArrayList<>();
-
-        // 繪製背景
-        DrawRectangleItem drawRectangleItem =
-                buildTextBackground(graphics, imageItem, text, maxTextWidth, textStringList.size());
-        drawItemList.add(drawRectangleItem);
-        for (int i = 0; i < textStringList.size(); i++) {
-            String textString = textStringList.get(i);
-            int textWidth = fontMetrics.stringWidth(textString);
-
-            DrawTextItem drawTextItem = new DrawTextItem();
-            drawTextItem.setText(textString);
-            drawTextItem.setFont(text.getFont());
-            drawTextItem.setColor(text.getColor());
-            // 定位x軸位置
-            switch (text.getPosition()) {
-                case LEFT:
-                    drawTextItem.setX(drawRectangleItem.getX() + text.getPaddingLeft());
-                    break;
-                case MIDDLE:
-                    drawTextItem.setX(
-                            (drawRectangleItem.getX()
-                                                    + text.getPaddingLeft()
-                                                    + drawRectangleItem.getX()
-                                                    + drawRectangleItem.getWidth()
-                                                    - text.getPaddingRight())
-                                            / 2
-                                    - (textWidth / 2));
-                    break;
-                case RIGHT:
-                    // 最後的-10為補上java計算誤差
-                    drawTextItem.setX(
-                            drawRectangleItem.getX()
-                                    + text.getPaddingLeft()
-                                    + drawRectangleItem.getX()
-                                    + drawRectangleItem.getWidth()
-                                    - text.getPaddingRight()
-                                    - textWidth
-                                    - 10);
-                    break;
-            }
-            // 定位y軸位置
-            drawTextItem.setY(drawRectangleItem.getY() + (textHeight * i) + text.getPaddingTop());
-            drawItemList.add(drawTextItem);
+        try {
+            return toContentKey(getItemListKey(this.itemList, visiting));
+        } finally {
+            visiting.remove(this);
         }
-        return drawItemList;
     }
 
-    /** 繪製文字項目 */
-    private void drawTextItem(Graphics2D graphics, DrawTextItem drawTextItem) {
-        graphics.setColor(drawTextItem.getColor());
-        graphics.setFont(drawTextItem.getFont());
-        // Graphics2D畫字串上去並不是用左上角定位，y要多補字體大小才是左上定位點
-        graphics.drawString(
-                drawTextItem.getText(),
-                drawTextItem.getX(),
-                drawTextItem.getY() + drawTextItem.getFont().getSize());
+    /** 加上畫布設定組成內容識別 */
+    private Object toContentKey(Object itemListKey) {
+        if (null == itemListKey) {
+            return null;
+        }
+        List<Object> key = new ArrayList<>();
+        key.add(this.width);
+        key.add(this.height);
+        key.add(this.renderer.getBackgroundColor());
+        key.add(this.pixelFormat);
+        key.add(itemListKey);
+        return key;
     }
 
     /**
-     * 取得自動調整後字體大小
+     * 取得物件清單的內容識別(包含位置)
      *
-     * @return 調整後字體大小
+     * @return 內容識別，包含無法識別內容的物件時為null
      */
-    private int getAutoScaleFontSize(Graphics2D graphics, Text text) {
-        if (text.getWidth() <= 0) {
-            return text.getFont().getSize();
-        }
-
-        if (null != text.getFont()) {
-            graphics.setFont(text.getFont());
+    private static Object getItemListKey(List<ImageItem> itemList, Set<ImageBuilder> visiting)
+            throws ImageException {
+        List<Object> key = new ArrayList<>(itemList.size());
+        for (ImageItem imageItem : itemList) {
+            Object itemKey = getItemKey(imageItem.getItem(), visiting);
+            if (null == itemKey) {
+                return null;
+            }
+            key.add(
+                    Arrays.asList(
+                            imageItem.getX(),
+                            imageItem.getY(),
+                            imageItem.getPositionX(),
+                            imageItem.getPositionY(),
+                            itemKey));
         }
+        return key;
+    }
 
-        String[] textStrings = text.getText().split("\n");
-        int minFontSize = graphics.getFont().getSize();
-        for (String textString : textStrings) {
-            int textWidth = graphics.getFontMetrics().stringWidth(textString);
-            while (textWidth
-                    >= (text.getWidth() - text.getPaddingLeft() - text.getPaddingRight())) {
-                // 將字體條小一號
-                minFontSize = graphics.getFont().getSize() - 1;
-                graphics.setFont(graphics.getFont().deriveFont(Float.valueOf(minFontSize)));
-                textWidth = graphics.getFontMetrics().stringWidth(textString);
+    /** 物件內容識別(不含是否為靜態物件等不影響繪製結果的設定) */
+    private static Object getItemKey(Item item, Set<ImageBuilder> visiting)
+            throws ImageException {
+        if (item instanceof Text) {
+            Text text = (Text) item;
+            return Arrays.asList(
+                    Text.class,
+                    text.getWidth(),
+                    text.getHeight(),
+                    text.getText(),
+                    text.getColor(),
+                    text.getBackgroundColor(),
+                    text.getFont(),
+                    text.getPaddingTop(),
+                    text.getPaddingLeft(),
+                    text.getPaddingRight(),
+                    text.getPaddingBottom(),
+                    text.getPosition(),
+                    text.getIsAutoScaledFont());
+        } else if (item instanceof Image) {
+            Image image = (Image) item;
+            return Arrays.asList(
+                    Image.class,
+                    image.getWidth(),
+                    image.getHeight(),
+                    image.getSourceKey(),
+                    image.getScaleType());
+        } else if (item instanceof Rectangle) {
+            Rectangle rectangle = (Rectangle) item;
+            return Arrays.asList(
+                    Rectangle.class,
+                    rectangle.getWidth(),
+                    rectangle.getHeight(),
+                    rectangle.getColor(),
+                    rectangle.getStrokeWidth(),
+                    rectangle.getStrokeColor(),
+                    rectangle.getCornerRadius());
+        } else if (item instanceof Ellipse) {
+            Ellipse ellipse = (Ellipse) item;
+            return Arrays.asList(
+                    Ellipse.class,
+                    ellipse.getWidth(),
+                    ellipse.getHeight(),
+                    ellipse.getColor(),
+                    ellipse.getStrokeWidth(),
+                    ellipse.getStrokeColor());
+        } else if (item instanceof Composite) {
+            Composite composite = (Composite) item;
+            Object contentKey = composite.getImageBuilder().getContentKey(visiting);
+            if (null == contentKey) {
+                return null;
             }
+            return Arrays.asList(
+                    Composite.class,
+                    composite.getWidth(),
+                    composite.getHeight(),
+                    contentKey,
+                    composite.getScaleType());
         }
-        return minFontSize;
+        return null;
     }
 
     /**
-     * 將過長的文字斷行
+     * 繪製畫布
      *
-     * @return 整理後的文字陣列
+     * <p>位於最前面的連續靜態物件使用快取的底圖，每次繪製只需複製底圖並繪製其餘物件，設定平行繪製時其餘物件以分段平行繪製。繪製前會先剔除不需繪製的項目
      */
-    private List<String> cutText(Graphics2D graphics, Text text) {
-        String[] textStrings = text.getText().split("\n");
-        if (text.getWidth() <= 0) {
-            return Arrays.asList(textStrings);
+    private RenderedFrame renderFrame(boolean alpha) throws ImageException {
+        PixelFormat pixelFormat = this.pixelFormat.resolve(alpha);
+        int staticCount = 0;
+        while (staticCount < this.itemList.size()
+                && this.itemList.get(staticCount).getItem().getIsStatic()) {
+            staticCount++;
         }
-
-        if (null != text.getFont()) {
-            graphics.setFont(text.getFont());
+        BufferedImage bufferedImage;
+        int culledCount = 0;
+        if (staticCount == 0) {
+            bufferedImage = this.renderer.createCanvas(pixelFormat, alpha);
+        } else {
+            BaseLayer baseLayer = getBaseLayer(pixelFormat, staticCount);
+            bufferedImage = this.renderer.copyCanvas(baseLayer.getImage());
+            culledCount += baseLayer.getCulledCount();
         }
-
-        FontMetrics fontMetrics = graphics.getFontMetrics();
-        List<String> cutTextList = new ArrayList<>();
-        for (String textString : textStrings) {
-            StringBuilder stringBuilder = new StringBuilder();
-            for (char c : textString.toCharArray()) {
-                int textWidth = fontMetrics.stringWidth(stringBuilder.toString());
-                // -20為補上計算誤差
-                if (textWidth
-                        >= text.getWidth() - 20 - text.getPaddingLeft() - text.getPaddingRight()) {
-                    // 超過長度的話進行斷行
-                    cutTextList.add(stringBuilder.toString());
-                    stringBuilder = new StringBuilder();
-                }
-                stringBuilder.append(c);
+        List<DrawItem> drawItemList =
+                layout(this.itemList.subList(staticCount, this.itemList.size()));
+        List<DrawItem> visibleList = this.renderer.cull(drawItemList);
+        culledCount += drawItemList.size() - visibleList.size();
+        if (this.renderParallelism > 1) {
+            this.renderer.drawParallel(
+                    bufferedImage, visibleList, staticCount == 0, this.renderParallelism);
+        } else {
+            Graphics2D graphics =
+                    staticCount == 0
+                            ? this.renderer.createGraphics(bufferedImage)
+                            : this.renderer.createOverlayGraphics(bufferedImage);
+            try {
+                this.renderer.draw(graphics, visibleList);
+            } finally {
+                graphics.dispose();
             }
-            cutTextList.add(stringBuilder.toString());
-        }
-        return cutTextList;
-    }
-
-    /** 建立要繪製的文字背景 */
-    private DrawRectangleItem buildTextBackground(
-            Graphics2D graphics, ImageItem imageItem, Text text, int textWidth, int lineCount) {
-        FontMetrics fontMetrics = graphics.getFontMetrics();
-        int textHeight = fontMetrics.getHeight();
-        DrawRectangleItem drawRectangleItem = new DrawRectangleItem();
-        drawRectangleItem.setWidth(
-                text.getWidth() == 0
-                        ? textWidth + text.getPaddingLeft() + text.getPaddingRight()
-                        : text.getWidth());
-        int rectangleHeight =
-                textHeight * lineCount + text.getPaddingTop() + text.getPaddingBottom();
-        drawRectangleItem.setHeight(
-                text.getHeight() < rectangleHeight ? rectangleHeight : text.getHeight());
-        drawRectangleItem.setColor(text.getBackgroundColor());
-
-        // 定位x軸位置
-        switch (imageItem.getPositionX()) {
-            case LEFT:
-                drawRectangleItem.setX(0);
-                break;
-            case RIGHT:
-                drawRectangleItem.setX(this.width - drawRectangleItem.getWidth());
-                break;
-            case MIDDLE:
-                drawRectangleItem.setX((this.width - drawRectangleItem.getWidth()) / 2);
-                break;
-            default:
-                drawRectangleItem.setX(imageItem.getX());
-                break;
-        }
-        // 定位y軸位置
-        switch (imageItem.getPositionY()) {
-            case TOP:
-                drawRectangleItem.setY(0);
-                break;
-            case BOTTOM:
-                drawRectangleItem.setY(this.height - drawRectangleItem.getHeight());
-                break;
-            case MIDDLE:
-                drawRectangleItem.setY((this.height - drawRectangleItem.getHeight()) / 2);
-                break;
-            default:
-                drawRectangleItem.setY(imageItem.getY());
-                break;
         }
-        return drawRectangleItem;
-    }
-
-    /** 建立要繪製的矩形項目 */
-    private DrawRectangleItem buildDrawRectangleItem(Graphics2D graphics, ImageItem imageItem) {
-        Rectangle rectangle = (Rectangle) imageItem.getItem();
-        DrawRectangleItem drawRectangleItem = new DrawRectangleItem();
-        drawRectangleItem.setHeight(rectangle.getHeight());
-        drawRectangleItem.setWidth(rectangle.getWidth());
-        drawRectangleItem.setColor(rectangle.getColor());
-        drawRectangleItem.setStrokeWidth(rectangle.getStrokeWidth());
-        drawRectangleItem.setStrokeColor(rectangle.getStrokeColor());
-        drawRectangleItem.setCornerRadius(rectangle.getCornerRadius());
-        switch (imageItem.getPositionX()) {
-            case LEFT:
-                drawRectangleItem.setX(0);
-                break;
-            case RIGHT:
-                drawRectangleItem.setX(this.width - rectangle.getWidth());
-                break;
-            case MIDDLE:
-                drawRectangleItem.setX((this.width - rectangle.getWidth()) / 2);
-                break;
-            default:
-                drawRectangleItem.setX(imageItem.getX());
-                break;
+        return new RenderedFrame(bufferedImage, culledCount);
+    }
+
+    /** 排版物件 */
+    private List<DrawItem> layout(List<ImageItem> itemList) throws ImageException {
+        Graphics2D graphics = this.renderer.createMeasureGraphics();
+        try {
+            return this.renderer.layout(graphics, itemList);
+        } finally {
+            graphics.dispose();
         }
-        switch (imageItem.getPositionY()) {
-            case TOP:
-                drawRectangleItem.setY(0);
-                break;
-            case BOTTOM:
-                drawRectangleItem.setY(this.height - rectangle.getHeight());
-                break;
-            case MIDDLE:
-                drawRectangleItem.setY((this.height - rectangle.getHeight()) / 2);
-                break;
-            default:
-                drawRectangleItem.setY(imageItem.getY());
-                break;
+    }
+
+    /** 分段繪製並逐段編碼輸出，不使用靜態物件底圖 */
+    private void buildBands(
+            OutputType outputType, EncoderOptions options, OutputStream outputStream)
+            throws ImageException {
+        if (outputType != OutputType.PNG) {
+            throw new ImageException("分段繪製僅支援PNG輸出");
         }
-        return drawRectangleItem;
-    }
-
-    /** 繪製矩形項目 */
-    private void drawRectangleItem(Graphics2D graphics, DrawRectangleItem drawRectangleItem) {
-        if (drawRectangleItem.getCornerRadius() > 0) {
-            // 使用圓角矩形
-            if (drawRectangleItem.getStrokeWidth() > 0) {
-                Shape shape =
-                        new RoundRectangle2D.Float(
-                                drawRectangleItem.getX()
-                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
-                                drawRectangleItem.getY()
-                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
-                                drawRectangleItem.getWidth() - drawRectangleItem.getStrokeWidth(),
-                                drawRectangleItem.getHeight() - drawRectangleItem.getStrokeWidth(),
-                                drawRectangleItem.getCornerRadius(),
-                                drawRectangleItem.getCornerRadius());
-                graphics.setColor(drawRectangleItem.getColor());
-                graphics.fill(shape);
-                Stroke oldStroke = graphics.getStroke();
-                graphics.setColor(drawRectangleItem.getStrokeColor());
-                graphics.setStroke(new BasicStroke(drawRectangleItem.getStrokeWidth()));
-                graphics.draw(shape);
-                graphics.setStroke(oldStroke);
-            } else {
-                graphics.setColor(drawRectangleItem.getColor());
-                graphics.fill(
-                        new RoundRectangle2D.Float(
-                                drawRectangleItem.getX(),
-                                drawRectangleItem.getY(),
-                                drawRectangleItem.getWidth(),
-                                drawRectangleItem.getHeight(),
-                                drawRectangleItem.getCornerRadius(),
-                                drawRectangleItem.getCornerRadius()));
-            }
-        } else {
-            // 使用矩形
-            if (drawRectangleItem.getStrokeWidth() > 0) {
-                Shape shape =
-                        new Rectangle2D.Float(
-                                drawRectangleItem.getX()
-                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
-                                drawRectangleItem.getY()
-                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
-                                drawRectangleItem.getWidth() - drawRectangleItem.getStrokeWidth(),
-                                drawRectangleItem.getHeight() - drawRectangleItem.getStrokeWidth());
-                graphics.setColor(drawRectangleItem.getColor());
-                graphics.fill(shape);
-                Stroke oldStroke = graphics.getStroke();
-                graphics.setColor(drawRectangleItem.getStrokeColor());
-                graphics.setStroke(new BasicStroke(drawRectangleItem.getStrokeWidth()));
-                graphics.draw(shape);
-                graphics.setStroke(oldStroke);
-            } else {
-                graphics.setColor(drawRectangleItem.getColor());
-                graphics.fill(
-                        new Rectangle2D.Float(
-                                drawRectangleItem.getX(),
-                                drawRectangleItem.getY(),
-                                drawRectangleItem.getWidth(),
-                                drawRectangleItem.getHeight()));
-            }
+        PixelFormat pixelFormat = this.pixelFormat.resolve(outputType.isAlpha());
+        List<DrawItem> drawItemList = this.renderer.cull(layout(this.itemList));
+        try (PngEncoder encoder =
+                ImageWriteUtils.createPngEncoder(
+                        options, outputStream, this.width, this.height, pixelFormat.isAlpha())) {
+            this.renderer.drawBands(
+                    pixelFormat, drawItemList, this.bandHeight, encoder::writeImage);
+            encoder.finish();
+        } catch (IOException e) {
+            throw new ImageException(e);
         }
     }
 
-    /** 建立要繪製的橢圓項目 */
-    private DrawEllipseItem buildDrawEllipseItem(Graphics2D graphics, ImageItem imageItem) {
-        Ellipse ellipse = (Ellipse) imageItem.getItem();
-        DrawEllipseItem drawEllipseItem = new DrawEllipseItem();
-        drawEllipseItem.setHeight(ellipse.getHeight());
-        drawEllipseItem.setWidth(ellipse.getWidth());
-        drawEllipseItem.setColor(ellipse.getColor());
-        drawEllipseItem.setStrokeWidth(ellipse.getStrokeWidth());
-        drawEllipseItem.setStrokeColor(ellipse.getStrokeColor());
-        switch (imageItem.getPositionX()) {
-            case LEFT:
-                drawEllipseItem.setX(0);
-                break;
-            case RIGHT:
-                drawEllipseItem.setX(this.width - ellipse.getWidth());
-                break;
-            case MIDDLE:
-                drawEllipseItem.setX((this.width - ellipse.getWidth()) / 2);
-                break;
-            default:
-                drawEllipseItem.setX(imageItem.getX());
-                break;
+    /**
+     * 取得前staticCount個物件的底圖，物件內容或像素格式不同時重新建立
+     *
+     * <p>以物件內容而非物件本身比對，建立底圖後再透過setter修改物件亦會重新建立。包含無法識別內容的物件時每次皆重新建立
+     */
+    private BaseLayer getBaseLayer(PixelFormat pixelFormat, int staticCount)
+            throws ImageException {
+        List<ImageItem> staticItemList = this.itemList.subList(0, staticCount);
+        Object itemListKey =
+                getItemListKey(
+                        staticItemList, Collections.newSetFromMap(new IdentityHashMap<>()));
+        BaseLayer baseLayer = this.baseLayer;
+        if (null != baseLayer && baseLayer.matches(pixelFormat, itemListKey)) {
+            return baseLayer;
         }
-        switch (imageItem.getPositionY()) {
-            case TOP:
-                drawEllipseItem.setY(0);
-                break;
-            case BOTTOM:
-                drawEllipseItem.setY(this.height - ellipse.getHeight());
-                break;
-            case MIDDLE:
-                drawEllipseItem.setY((this.height - ellipse.getHeight()) / 2);
-                break;
-            default:
-                drawEllipseItem.setY(imageItem.getY());
-                break;
+        List<DrawItem> drawItemList = layout(staticItemList);
+        List<DrawItem> visibleList = this.renderer.cull(drawItemList);
+        baseLayer =
+                new BaseLayer(
+                        pixelFormat,
+                        itemListKey,
+                        this.renderer.createBaseLayer(pixelFormat, visibleList),
+                        drawItemList.size() - visibleList.size());
+        this.baseLayer = baseLayer;
+        return baseLayer;
+    }
+
+    /** 靜態物件底圖 */
+    @Getter
+    private static class BaseLayer {
+
+        private final PixelFormat pixelFormat;
+
+        /** 物件內容識別，null為無法識別 */
+        private final Object itemListKey;
+
+        private final BufferedImage image;
+
+        /** 剔除的項目數 */
+        private final int culledCount;
+
+        private BaseLayer(
+                PixelFormat pixelFormat,
+                Object itemListKey,
+                BufferedImage image,
+                int culledCount) {
+            this.pixelFormat = pixelFormat;
+            this.itemListKey = itemListKey;
+            this.image = image;
+            this.culledCount = culledCount;
         }
-        return drawEllipseItem;
-    }
-
-    /** 繪製橢圓項目 */
-    private void drawEllipseItem(Graphics2D graphics, DrawEllipseItem drawEllipseItem) {
-        // 使用圓角矩形
-        if (drawEllipseItem.getStrokeWidth() > 0) {
-            Shape shape =
-                    new Ellipse2D.Float(
-                            drawEllipseItem.getX() + ((float) drawEllipseItem.getStrokeWidth() / 2),
-                            drawEllipseItem.getY() + ((float) drawEllipseItem.getStrokeWidth() / 2),
-                            drawEllipseItem.getWidth() - drawEllipseItem.getStrokeWidth(),
-                            drawEllipseItem.getHeight() - drawEllipseItem.getStrokeWidth());
-            graphics.setColor(drawEllipseItem.getColor());
-            graphics.fill(shape);
-            Stroke oldStroke = graphics.getStroke();
-            graphics.setColor(drawEllipseItem.getStrokeColor());
-            graphics.setStroke(new BasicStroke(drawEllipseItem.getStrokeWidth()));
-            graphics.draw(shape);
-            graphics.setStroke(oldStroke);
-        } else {
-            graphics.setColor(drawEllipseItem.getColor());
-            graphics.fill(
-                    new Ellipse2D.Float(
-                            drawEllipseItem.getX(),
-                            drawEllipseItem.getY(),
-                            drawEllipseItem.getWidth(),
-                            drawEllipseItem.getHeight()));
+
+        /** 像素格式及物件內容皆相同 */
+        private boolean matches(PixelFormat pixelFormat, Object itemListKey) {
+            return this.pixelFormat == pixelFormat
+                    && null != itemListKey
+                    && itemListKey.equals(this.itemListKey);
         }
     }
 
     @Getter
-    private static class ImageItem {
+    static class ImageItem {
 
         private final int x;
 
@@ -824,63 +954,4 @@ public class ImageBuilder {
             this.item = item;
         }
     }
-
-    @Getter
-    @Setter
-    private static class DrawItem {
-
-        private Integer x;
-
-        private Integer y;
-    }
-
-    @Getter
-    @Setter
-    private static class DrawRectangleItem extends DrawItem {
-
-        private Integer width;
-
-        private Integer height;
-
-        private Color color;
-
-        private Integer strokeWidth = 0;
-
-        private Color strokeColor = Color.BLACK;
-
-        private Integer cornerRadius = 0;
-    }
-
-    @Getter
-    @Setter
-    private static class DrawEllipseItem extends DrawItem {
-
-        private Integer width;
-
-        private Integer height;
-
-        private Color color;
-
-        private Integer strokeWidth = 0;
-
-        private Color strokeColor = Color.BLACK;
-    }
-
-    @Getter
-    @Setter
-    private static class DrawTextItem extends DrawItem {
-
-        private String text;
-
-        private Color color;
-
-        private Font font;
-    }
-
-    @Getter
-    @Setter
-    private static class DrawImageItem extends DrawItem {
-
-        private java.awt.Image image;
-    }
 }
@@ -0,0 +1,158 @@
+package io.github.af19git5.builder;
+
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.io.AppendableOutputStream;
+import io.github.af19git5.io.Base64OutputStream;
+import io.github.af19git5.io.ByteBufferAllocator;
+import io.github.af19git5.io.ByteBufferOutputStream;
+import io.github.af19git5.io.ChannelOutputStream;
+import io.github.af19git5.type.OutputType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 圖檔輸出共用
+ *
+ * <p>{@link ImageBuilder}、{@link ImageTemplate}及{@link RenderedFrame}的各種輸出方式皆轉換為寫入輸出流，由此處統一處理
+ *
+ * @author Jimmy Kang
+ */
+class ImageOutput {
+
+    /**
+     * 建立byte陣列
+     *
+     * @param encoder 圖檔編碼
+     * @return 圖檔byte陣列
+     */
+    static byte[] toBytes(Encoder encoder) throws ImageException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        encoder.encode(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * 寫入通道
+     *
+     * @param encoder 圖檔編碼
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    static void toChannel(Encoder encoder, WritableByteChannel channel) throws ImageException {
+        try (OutputStream outputStream = new ChannelOutputStream(channel)) {
+            encoder.encode(outputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 寫入由配置器取得的緩衝區
+     *
+     * @param encoder 圖檔編碼
+     * @param allocator 緩衝區配置器
+     * @param width 圖片寬
+     * @param height 圖片高
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    static ByteBuffer toByteBuffer(
+            Encoder encoder, ByteBufferAllocator allocator, int width, int height)
+            throws ImageException {
+        ByteBufferOutputStream outputStream =
+                new ByteBufferOutputStream(allocator, estimateSize(width, height));
+        try {
+            encoder.encode(outputStream);
+        } catch (Throwable e) {
+            // 編碼失敗時緩衝區不會交給呼叫端，需交還配置器
+            outputStream.release();
+            throw e;
+        }
+        return outputStream.toByteBuffer();
+    }
+
+    /**
+     * 以base64寫入輸出流
+     *
+     * @param encoder 圖檔編碼
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    static void toBase64(Encoder encoder, OutputStream outputStream) throws ImageException {
+        try (OutputStream base64OutputStream = new Base64OutputStream(outputStream)) {
+            encoder.encode(base64OutputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 以base64附加至目標
+     *
+     * @param encoder 圖檔編碼
+     * @param appendable 寫入目標(不會被關閉)
+     */
+    static void appendBase64(Encoder encoder, Appendable appendable) throws ImageException {
+        try (OutputStream outputStream = new AppendableOutputStream(appendable)) {
+            toBase64(encoder, outputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 以data URI寫入輸出流
+     *
+     * @param outputType 輸出格式
+     * @param encoder 圖檔編碼
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    static void toDataUri(OutputType outputType, Encoder encoder, OutputStream outputStream)
+            throws ImageException {
+        try {
+            outputStream.write(getDataUriPrefix(outputType).getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+        toBase64(encoder, outputStream);
+    }
+
+    /**
+     * 以data URI附加至目標
+     *
+     * @param outputType 輸出格式
+     * @param encoder 圖檔編碼
+     * @param appendable 寫入目標(不會被關閉)
+     */
+    static void appendDataUri(OutputType outputType, Encoder encoder, Appendable appendable)
+            throws ImageException {
+        try {
+            appendable.append(getDataUriPrefix(outputType));
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+        appendBase64(encoder, appendable);
+    }
+
+    /** data URI開頭 */
+    private static String getDataUriPrefix(OutputType outputType) {
+        return "data:" + outputType.getMimeType() + ";base64,";
+    }
+
+    /** 預估編碼後大小作為緩衝區初始容量(偏小估計，不足時再由輸出流加倍擴充) */
+    private static int estimateSize(int width, int height) {
+        return (int) Math.min(Math.max((long) width * height / 8, 8192L), 4L * 1024 * 1024);
+    }
+
+    /** 將圖檔編碼寫入輸出流 */
+    @FunctionalInterface
+    interface Encoder {
+
+        /**
+         * @param outputStream 輸出流(不會被關閉)
+         */
+        void encode(OutputStream outputStream) throws ImageException;
+    }
+}
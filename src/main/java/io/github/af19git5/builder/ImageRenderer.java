@@ -0,0 +1,1115 @@
+package io.github.af19git5.builder;
+
+import io.github.af19git5.builder.ImageBuilder.ImageItem;
+import io.github.af19git5.cache.CompositeCache;
+import io.github.af19git5.cache.ScaledImageCache;
+import io.github.af19git5.cache.TextLayoutCache;
+import io.github.af19git5.entity.*;
+import io.github.af19git5.entity.Composite;
+import io.github.af19git5.entity.Image;
+import io.github.af19git5.entity.Rectangle;
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.font.FontAdvanceTable;
+import io.github.af19git5.font.FontRegistry;
+import io.github.af19git5.type.PixelFormat;
+import io.github.af19git5.utils.ImageScaleUtils;
+import io.github.af19git5.utils.TextUtils;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.awt.*;
+import java.awt.font.TextLayout;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 圖片繪製器，負責將物件排版為繪製項目並繪製至畫布
+ *
+ * <p>本類別不保存繪製過程中的狀態，且不會修改傳入的物件，可於多執行緒共用
+ *
+ * @author Jimmy Kang
+ */
+class ImageRenderer {
+
+    /** 剔除時保留的遮蔽範圍數量上限 */
+    private static final int MAX_OCCLUDERS = 64;
+
+    @Getter private final int width;
+
+    @Getter private final int height;
+
+    @Getter private final Color backgroundColor;
+
+    /**
+     * @param width 圖片寬
+     * @param height 圖片高
+     * @param backgroundColor 圖片背景色
+     */
+    ImageRenderer(int width, int height, Color backgroundColor) {
+        this.width = width;
+        this.height = height;
+        this.backgroundColor = backgroundColor;
+    }
+
+    /**
+     * 建立畫布
+     *
+     * @param pixelFormat 像素格式
+     * @param alpha 是否需要透明度(像素格式為AUTO時依此選擇)
+     * @return 畫布
+     */
+    BufferedImage createCanvas(PixelFormat pixelFormat, boolean alpha) {
+        return new BufferedImage(
+                this.width, this.height, pixelFormat.resolve(alpha).getImageType());
+    }
+
+    /**
+     * 建立畫布繪圖物件並填滿背景色
+     *
+     * @param bufferedImage 畫布
+     * @return 繪圖物件
+     */
+    Graphics2D createGraphics(BufferedImage bufferedImage) {
+        Graphics2D graphics = createOverlayGraphics(bufferedImage);
+        graphics.setColor(this.backgroundColor);
+        graphics.fillRect(0, 0, this.width, this.height);
+        return graphics;
+    }
+
+    /**
+     * 建立畫布繪圖物件，不填滿背景色(用於已複製底圖的畫布)
+     *
+     * @param bufferedImage 畫布
+     * @return 繪圖物件
+     */
+    Graphics2D createOverlayGraphics(BufferedImage bufferedImage) {
+        Graphics2D graphics = bufferedImage.createGraphics();
+        // 加入抗鋸齒
+        graphics.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return graphics;
+    }
+
+    /**
+     * 建立底圖，繪製背景色及已完成排版的繪製項目
+     *
+     * @param pixelFormat 像素格式(不為AUTO)
+     * @param drawItemList 繪製項目列表
+     * @return 底圖(建立後不可再修改)
+     */
+    BufferedImage createBaseLayer(PixelFormat pixelFormat, List<DrawItem> drawItemList) {
+        BufferedImage baseLayer = createCanvas(pixelFormat, pixelFormat.isAlpha());
+        Graphics2D graphics = createGraphics(baseLayer);
+        try {
+            draw(graphics, drawItemList);
+        } finally {
+            graphics.dispose();
+        }
+        return baseLayer;
+    }
+
+    /**
+     * 以底圖建立新畫布，直接複製像素陣列
+     *
+     * @param baseLayer 底圖
+     * @return 新畫布
+     */
+    BufferedImage copyCanvas(BufferedImage baseLayer) {
+        BufferedImage canvas = new BufferedImage(this.width, this.height, baseLayer.getType());
+        DataBuffer source = baseLayer.getRaster().getDataBuffer();
+        DataBuffer target = canvas.getRaster().getDataBuffer();
+        if (source instanceof DataBufferInt && target instanceof DataBufferInt) {
+            int[] sourceData = ((DataBufferInt) source).getData();
+            System.arraycopy(
+                    sourceData, 0, ((DataBufferInt) target).getData(), 0, sourceData.length);
+        } else if (source instanceof DataBufferByte && target instanceof DataBufferByte) {
+            byte[] sourceData = ((DataBufferByte) source).getData();
+            System.arraycopy(
+                    sourceData, 0, ((DataBufferByte) target).getData(), 0, sourceData.length);
+        } else {
+            canvas.getRaster().setRect(baseLayer.getRaster());
+        }
+        return canvas;
+    }
+
+    /**
+     * 分段繪製，由上而下依序繪製每段畫布並交由處理器處理，同一時間僅保留一段大小的畫布，每段僅繪製與該段相交的項目
+     *
+     * @param pixelFormat 像素格式(不為AUTO)
+     * @param drawItemList 繪製項目列表
+     * @param bandHeight 每段高度
+     * @param handler 分段處理器(畫布會於下一段重複使用)
+     */
+    void drawBands(
+            PixelFormat pixelFormat,
+            List<DrawItem> drawItemList,
+            int bandHeight,
+            BandHandler handler)
+            throws IOException {
+        int canvasHeight = Math.min(bandHeight, this.height);
+        BufferedImage band =
+                new BufferedImage(this.width, canvasHeight, pixelFormat.getImageType());
+        for (int y = 0; y < this.height; y += canvasHeight) {
+            int rowCount = Math.min(canvasHeight, this.height - y);
+            Graphics2D graphics = createOverlayGraphics(band);
+            try {
+                // 清除上一段的內容，背景色含透明度時無法直接覆蓋
+                graphics.setBackground(new Color(0, 0, 0, 0));
+                graphics.clearRect(0, 0, this.width, canvasHeight);
+                // 平移至該段位置，繪製項目維持整張畫布的座標，超出該段的部分由畫布範圍裁切
+                graphics.translate(0, -y);
+                graphics.setColor(this.backgroundColor);
+                graphics.fillRect(0, y, this.width, rowCount);
+                drawIntersecting(
+                        graphics, drawItemList, new java.awt.Rectangle(0, y, this.width, rowCount));
+            } finally {
+                graphics.dispose();
+            }
+            handler.handle(band, rowCount);
+        }
+    }
+
+    /**
+     * 建立僅供排版量測用的繪圖物件
+     *
+     * @return 繪圖物件
+     */
+    Graphics2D createMeasureGraphics() {
+        Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        graphics.setRenderingHint(
+                RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        return graphics;
+    }
+
+    /**
+     * 組出要繪製物件
+     *
+     * @param graphics 繪圖物件(僅用於量測文字)
+     * @param itemList 物件列表
+     * @return 繪製項目列表
+     */
+    List<DrawItem> layout(Graphics2D graphics, List<ImageItem> itemList) throws ImageException {
+        Font defaultFont = graphics.getFont();
+        List<DrawItem> drawItemList = new ArrayList<>();
+        for (ImageItem imageItem : itemList) {
+            drawItemList.addAll(layout(graphics, imageItem, defaultFont));
+        }
+        return drawItemList;
+    }
+
+    /**
+     * 組出單一物件要繪製的項目
+     *
+     * @param graphics 繪圖物件(僅用於量測文字)
+     * @param imageItem 物件
+     * @param defaultFont 文字未指定字體時使用的字體
+     * @return 繪製項目列表
+     */
+    List<DrawItem> layout(Graphics2D graphics, ImageItem imageItem, Font defaultFont)
+            throws ImageException {
+        List<DrawItem> drawItemList = new ArrayList<>();
+        if (imageItem.getItem() instanceof Text) {
+            drawItemList.addAll(buildDrawTextItem(graphics, imageItem, defaultFont));
+        } else if (imageItem.getItem() instanceof Image) {
+            drawItemList.add(buildDrawImageItem(graphics, imageItem));
+        } else if (imageItem.getItem() instanceof Rectangle) {
+            drawItemList.add(buildDrawRectangleItem(graphics, imageItem));
+        } else if (imageItem.getItem() instanceof Ellipse) {
+            drawItemList.add(buildDrawEllipseItem(graphics, imageItem));
+        } else if (imageItem.getItem() instanceof Composite) {
+            drawItemList.add(buildDrawCompositeItem(imageItem));
+        }
+        return drawItemList;
+    }
+
+    /**
+     * 剔除不需繪製的項目
+     *
+     * <p>移除完全位於畫布外、不會繪製任何像素，以及完全被後面不透明項目(無圓角及邊線的不透明矩形、不透明圖片)遮蔽的項目。
+     * 保留的圖片項目於此時解碼、組合物件於此時繪製，被剔除的項目不會解碼或繪製。繪製前需先經過此步驟
+     *
+     * @param drawItemList 繪製項目列表
+     * @return 需繪製的項目列表(維持原繪製順序)
+     */
+    List<DrawItem> cull(List<DrawItem> drawItemList) throws ImageException {
+        java.awt.Rectangle canvas = new java.awt.Rectangle(0, 0, this.width, this.height);
+        List<java.awt.Rectangle> occluderList = new ArrayList<>();
+        List<DrawItem> visibleList = new ArrayList<>(drawItemList.size());
+        // 由最上層往下檢查，遮蔽物必定在被遮蔽項目之後繪製
+        for (int i = drawItemList.size() - 1; i >= 0; i--) {
+            DrawItem drawItem = drawItemList.get(i);
+            if (drawItem.isBlank()) {
+                continue;
+            }
+            java.awt.Rectangle bounds = drawItem.getBounds().intersection(canvas);
+            if (bounds.isEmpty() || isOccluded(bounds, occluderList)) {
+                continue;
+            }
+            if (drawItem instanceof DrawImageItem) {
+                resolveImage((DrawImageItem) drawItem);
+            }
+            java.awt.Rectangle opaqueBounds = drawItem.getOpaqueBounds();
+            if (null != opaqueBounds) {
+                addOccluder(occluderList, opaqueBounds.intersection(canvas));
+            }
+            visibleList.add(drawItem);
+        }
+        Collections.reverse(visibleList);
+        return visibleList;
+    }
+
+    private static boolean isOccluded(
+            java.awt.Rectangle bounds, List<java.awt.Rectangle> occluderList) {
+        for (java.awt.Rectangle occluder : occluderList) {
+            if (occluder.contains(bounds)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** 加入遮蔽範圍，數量達上限時取代面積最小者 */
+    private static void addOccluder(
+            List<java.awt.Rectangle> occluderList, java.awt.Rectangle occluder) {
+        if (occluder.isEmpty() || isOccluded(occluder, occluderList)) {
+            return;
+        }
+        if (occluderList.size() < MAX_OCCLUDERS) {
+            occluderList.add(occluder);
+            return;
+        }
+        int smallest = 0;
+        for (int i = 1; i < occluderList.size(); i++) {
+            if (area(occluderList.get(i)) < area(occluderList.get(smallest))) {
+                smallest = i;
+            }
+        }
+        if (area(occluder) > area(occluderList.get(smallest))) {
+            occluderList.set(smallest, occluder);
+        }
+    }
+
+    private static long area(java.awt.Rectangle rectangle) {
+        return (long) rectangle.width * rectangle.height;
+    }
+
+    /**
+     * 執行繪製物件
+     *
+     * @param graphics 繪圖物件
+     * @param drawItemList 繪製項目列表
+     */
+    void draw(Graphics2D graphics, List<DrawItem> drawItemList) {
+        for (DrawItem drawItem : drawItemList) {
+            draw(graphics, drawItem);
+        }
+    }
+
+    /**
+     * 分段平行繪製
+     *
+     * <p>畫布切分為水平分段，各分段以獨立的繪圖物件繪製至該段的子畫布，僅繪製與該段相交的項目並維持原繪製順序，各分段於ForkJoinPool平行執行
+     *
+     * @param canvas 畫布
+     * @param drawItemList 繪製項目列表
+     * @param fillBackground 是否填滿背景色(已複製底圖的畫布不需填滿)
+     * @param parallelism 分段數
+     */
+    void drawParallel(
+            BufferedImage canvas,
+            List<DrawItem> drawItemList,
+            boolean fillBackground,
+            int parallelism) {
+        int bandHeight = (this.height + parallelism - 1) / parallelism;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int y = 0; y < this.height; y += bandHeight) {
+            int bandY = y;
+            int rowCount = Math.min(bandHeight, this.height - y);
+            tasks.add(
+                    ForkJoinTask.adapt(
+                            () ->
+                                    drawBand(
+                                            canvas,
+                                            drawItemList,
+                                            fillBackground,
+                                            bandY,
+                                            rowCount)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    /** 繪製單一分段 */
+    private void drawBand(
+            BufferedImage canvas,
+            List<DrawItem> drawItemList,
+            boolean fillBackground,
+            int y,
+            int rowCount) {
+        // 子畫布與畫布共用像素資料，各分段的範圍不重疊
+        Graphics2D graphics = createOverlayGraphics(canvas.getSubimage(0, y, this.width, rowCount));
+        try {
+            graphics.translate(0, -y);
+            if (fillBackground) {
+                graphics.setColor(this.backgroundColor);
+                graphics.fillRect(0, y, this.width, rowCount);
+            }
+            drawIntersecting(
+                    graphics, drawItemList, new java.awt.Rectangle(0, y, this.width, rowCount));
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /** 僅繪製與分段範圍相交的項目 */
+    private void drawIntersecting(
+            Graphics2D graphics, List<DrawItem> drawItemList, java.awt.Rectangle band) {
+        for (DrawItem drawItem : drawItemList) {
+            if (drawItem.getBounds().intersects(band)) {
+                draw(graphics, drawItem);
+            }
+        }
+    }
+
+    /** 繪製單一項目 */
+    private void draw(Graphics2D graphics, DrawItem drawItem) {
+        if (drawItem instanceof DrawTextItem) {
+            drawTextItem(graphics, (DrawTextItem) drawItem);
+        } else if (drawItem instanceof DrawImageItem) {
+            drawImageItem(graphics, (DrawImageItem) drawItem);
+        } else if (drawItem instanceof DrawRectangleItem) {
+            drawRectangleItem(graphics, (DrawRectangleItem) drawItem);
+        } else if (drawItem instanceof DrawEllipseItem) {
+            drawEllipseItem(graphics, (DrawEllipseItem) drawItem);
+        }
+    }
+
+    /** 建立要繪製的圖片項目 */
+    private DrawImageItem buildDrawImageItem(Graphics2D graphics, ImageItem imageItem)
+            throws ImageException {
+        Image image = (Image) imageItem.getItem();
+        int imageWidth, imageHeight;
+        if (image.getWidth() > 0) {
+            imageWidth = image.getWidth();
+        } else {
+            imageWidth = image.getSourceWidth();
+        }
+
+        if (image.getHeight() > 0) {
+            imageHeight = image.getHeight();
+        } else {
+            imageHeight = image.getSourceHeight();
+        }
+
+        DrawImageItem drawImageItem = new DrawImageItem();
+        switch (imageItem.getPositionX()) {
+            case LEFT:
+                drawImageItem.setX(0);
+                break;
+            case RIGHT:
+                drawImageItem.setX(this.width - imageWidth);
+                break;
+            case MIDDLE:
+                drawImageItem.setX((this.width - imageWidth) / 2);
+                break;
+            default:
+                drawImageItem.setX(imageItem.getX());
+                break;
+        }
+        switch (imageItem.getPositionY()) {
+            case TOP:
+                drawImageItem.setY(0);
+                break;
+            case BOTTOM:
+                drawImageItem.setY(this.height - imageHeight);
+                break;
+            case MIDDLE:
+                drawImageItem.setY((this.height - imageHeight) / 2);
+                break;
+            default:
+                drawImageItem.setY(imageItem.getY());
+                break;
+        }
+
+        // 排版時不解碼，圖片於剔除後才解碼；僅設定單邊大小時不縮放，範圍為原始圖片大小
+        boolean scaled = image.getWidth() > 0 && image.getHeight() > 0;
+        drawImageItem.setWidth(scaled ? imageWidth : image.getSourceWidth());
+        drawImageItem.setHeight(scaled ? imageHeight : image.getSourceHeight());
+        drawImageItem.setSource(image);
+        return drawImageItem;
+    }
+
+    /** 解碼圖片項目的來源圖片，或繪製組合物件 */
+    private void resolveImage(DrawImageItem drawImageItem) throws ImageException {
+        if (null != drawImageItem.getComposite()) {
+            resolveComposite(drawImageItem);
+            return;
+        }
+        Image image = drawImageItem.getSource();
+        if (null == image) {
+            return;
+        }
+        int imageWidth = drawImageItem.getWidth();
+        int imageHeight = drawImageItem.getHeight();
+        if (image.getHeight() > 0 && image.getWidth() > 0) {
+            // 快取命中時不需解碼來源圖片
+            BufferedImage scaled =
+                    ScaledImageCache.get(
+                            image.getSourceKey(), imageWidth, imageHeight, image.getScaleType());
+            if (null == scaled) {
+                scaled =
+                        ImageScaleUtils.scale(
+                                image.getBufferedImage(),
+                                imageWidth,
+                                imageHeight,
+                                image.getScaleType());
+                ScaledImageCache.put(
+                        image.getSourceKey(),
+                        imageWidth,
+                        imageHeight,
+                        image.getScaleType(),
+                        scaled);
+            }
+            drawImageItem.setImage(scaled);
+        } else {
+            drawImageItem.setImage(image.getBufferedImage());
+        }
+        drawImageItem.setSource(null);
+    }
+
+    /** 建立要繪製的組合物件項目，組合物件以繪製完成的圖片繪製(於剔除後繪製) */
+    private DrawImageItem buildDrawCompositeItem(ImageItem imageItem) {
+        Composite composite = (Composite) imageItem.getItem();
+        ImageBuilder imageBuilder = composite.getImageBuilder();
+        int compositeWidth =
+                composite.getWidth() > 0 ? composite.getWidth() : imageBuilder.getWidth();
+        int compositeHeight =
+                composite.getHeight() > 0 ? composite.getHeight() : imageBuilder.getHeight();
+
+        DrawImageItem drawImageItem = new DrawImageItem();
+        switch (imageItem.getPositionX()) {
+            case LEFT:
+                drawImageItem.setX(0);
+                break;
+            case RIGHT:
+                drawImageItem.setX(this.width - compositeWidth);
+                break;
+            case MIDDLE:
+                drawImageItem.setX((this.width - compositeWidth) / 2);
+                break;
+            default:
+                drawImageItem.setX(imageItem.getX());
+                break;
+        }
+        switch (imageItem.getPositionY()) {
+            case TOP:
+                drawImageItem.setY(0);
+                break;
+            case BOTTOM:
+                drawImageItem.setY(this.height - compositeHeight);
+                break;
+            case MIDDLE:
+                drawImageItem.setY((this.height - compositeHeight) / 2);
+                break;
+            default:
+                drawImageItem.setY(imageItem.getY());
+                break;
+        }
+
+        // 排版時不繪製，組合物件於剔除後才繪製
+        drawImageItem.setWidth(compositeWidth);
+        drawImageItem.setHeight(compositeHeight);
+        drawImageItem.setComposite(composite);
+        return drawImageItem;
+    }
+
+    /** 繪製組合物件項目的內嵌圖片 */
+    private void resolveComposite(DrawImageItem drawImageItem) throws ImageException {
+        Composite composite = drawImageItem.getComposite();
+        ImageBuilder imageBuilder = composite.getImageBuilder();
+        int compositeWidth = drawImageItem.getWidth();
+        int compositeHeight = drawImageItem.getHeight();
+
+        // 內容相同的組合物件共用繪製結果
+        Object contentKey = imageBuilder.getContentKey();
+        BufferedImage image = null == contentKey ? null : CompositeCache.get(contentKey);
+        if (null == image) {
+            image = imageBuilder.renderComposite();
+            if (null != contentKey) {
+                CompositeCache.put(contentKey, image);
+            }
+        }
+        if (compositeWidth != image.getWidth() || compositeHeight != image.getHeight()) {
+            if (null == contentKey) {
+                image =
+                        ImageScaleUtils.scale(
+                                image, compositeWidth, compositeHeight, composite.getScaleType());
+            } else {
+                BufferedImage scaled =
+                        ScaledImageCache.get(
+                                contentKey,
+                                compositeWidth,
+                                compositeHeight,
+                                composite.getScaleType());
+                if (null == scaled) {
+                    scaled =
+                            ImageScaleUtils.scale(
+                                    image,
+                                    compositeWidth,
+                                    compositeHeight,
+                                    composite.getScaleType());
+                    ScaledImageCache.put(
+                            contentKey,
+                            compositeWidth,
+                            compositeHeight,
+                            composite.getScaleType(),
+                            scaled);
+                }
+                image = scaled;
+            }
+        }
+        drawImageItem.setImage(image);
+        drawImageItem.setComposite(null);
+    }
+
+    /** 繪製圖片項目 */
+    private void drawImageItem(Graphics2D graphics, DrawImageItem drawImageItem) {
+        graphics.drawImage(
+                drawImageItem.getImage(), drawImageItem.getX(), drawImageItem.getY(), null);
+    }
+
+    /** 建立要繪製的文字項目 */
+    private List<DrawItem> buildDrawTextItem(
+            Graphics2D graphics, ImageItem imageItem, Font defaultFont) {
+        Text text = (Text) imageItem.getItem();
+
+        // 不修改文字物件本身，避免同一物件於多執行緒繪製時互相影響
+        Font font = null == text.getFont() ? defaultFont : text.getFont();
+
+        List<String> textStringList;
+        if (text.getIsAutoScaledFont()) {
+            // 覆寫字體大小
+            textStringList = Arrays.asList(text.getText().split("\n"));
+            font = FontRegistry.derive(font, getAutoScaleFontSize(text, font));
+        } else {
+            // 切分文字陣列
+            textStringList = cutText(text, font);
+        }
+
+        FontAdvanceTable advanceTable = FontAdvanceTable.of(font);
+        int textHeight = advanceTable.getHeight();
+        // 取得文字框最長寬度
+        int maxTextWidth = 0;
+        if (text.getWidth() > 0) {
+            maxTextWidth = text.getWidth();
+        } else {
+            for (String textString : textStringList) {
+                maxTextWidth = Math.max(maxTextWidth, advanceTable.stringWidth(textString));
+            }
+        }
+
+        List<DrawItem> drawItemList = new ArrayList<>();
+
+        // 繪製背景
+        DrawRectangleItem drawRectangleItem =
+                buildTextBackground(
+                        imageItem, text, textHeight, maxTextWidth, textStringList.size());
+        drawItemList.add(drawRectangleItem);
+        for (int i = 0; i < textStringList.size(); i++) {
+            String textString = textStringList.get(i);
+            int textWidth = advanceTable.stringWidth(textString);
+
+            DrawTextItem drawTextItem = new DrawTextItem();
+            drawTextItem.setText(textString);
+            drawTextItem.setFont(font);
+            drawTextItem.setColor(text.getColor());
+            // 定位x軸位置
+            switch (text.getPosition()) {
+                case LEFT:
+                    drawTextItem.setX(drawRectangleItem.getX() + text.getPaddingLeft());
+                    break;
+                case MIDDLE:
+                    drawTextItem.setX(
+                            (drawRectangleItem.getX()
+                                                    + text.getPaddingLeft()
+                                                    + drawRectangleItem.getX()
+                                                    + drawRectangleItem.getWidth()
+                                                    - text.getPaddingRight())
+                                            / 2
+                                    - (textWidth / 2));
+                    break;
+                case RIGHT:
+                    // 最後的-10為補上java計算誤差
+                    drawTextItem.setX(
+                            drawRectangleItem.getX()
+                                    + text.getPaddingLeft()
+                                    + drawRectangleItem.getX()
+                                    + drawRectangleItem.getWidth()
+                                    - text.getPaddingRight()
+                                    - textWidth
+                                    - 10);
+                    break;
+            }
+            // 定位y軸位置
+            drawTextItem.setY(drawRectangleItem.getY() + (textHeight * i) + text.getPaddingTop());
+            drawItemList.add(drawTextItem);
+        }
+        return drawItemList;
+    }
+
+    /** 繪製文字項目 */
+    private void drawTextItem(Graphics2D graphics, DrawTextItem drawTextItem) {
+        if (drawTextItem.getText().isEmpty()) {
+            return;
+        }
+        graphics.setColor(drawTextItem.getColor());
+        // 使用快取的排版結果，重複的文字不需重新排版字形
+        TextLayout textLayout =
+                TextLayoutCache.get(
+                        drawTextItem.getFont(),
+                        drawTextItem.getText(),
+                        graphics.getFontRenderContext());
+        // Graphics2D畫字串上去並不是用左上角定位，y要多補字體大小才是左上定位點
+        textLayout.draw(
+                graphics,
+                drawTextItem.getX(),
+                drawTextItem.getY() + drawTextItem.getFont().getSize());
+    }
+
+    /**
+     * 取得自動調整後字體大小
+     *
+     * @return 調整後字體大小
+     */
+    private int getAutoScaleFontSize(Text text, Font font) {
+        if (text.getWidth() <= 0) {
+            return font.getSize();
+        }
+
+        return TextUtils.getAutoScaleFontSize(
+                font,
+                text.getText(),
+                text.getWidth() - text.getPaddingLeft() - text.getPaddingRight());
+    }
+
+    /**
+     * 將過長的文字斷行
+     *
+     * @return 整理後的文字陣列
+     */
+    private List<String> cutText(Text text, Font font) {
+        if (text.getWidth() <= 0) {
+            return Arrays.asList(text.getText().split("\n"));
+        }
+
+        // -20為補上計算誤差
+        return TextUtils.wrap(
+                text.getText(),
+                FontAdvanceTable.of(font),
+                text.getWidth() - 20 - text.getPaddingLeft() - text.getPaddingRight());
+    }
+
+    /** 建立要繪製的文字背景 */
+    private DrawRectangleItem buildTextBackground(
+            ImageItem imageItem, Text text, int textHeight, int textWidth, int lineCount) {
+        DrawRectangleItem drawRectangleItem = new DrawRectangleItem();
+        drawRectangleItem.setWidth(
+                text.getWidth() == 0
+                        ? textWidth + text.getPaddingLeft() + text.getPaddingRight()
+                        : text.getWidth());
+        int rectangleHeight =
+                textHeight * lineCount + text.getPaddingTop() + text.getPaddingBottom();
+        drawRectangleItem.setHeight(
+                text.getHeight() < rectangleHeight ? rectangleHeight : text.getHeight());
+        drawRectangleItem.setColor(text.getBackgroundColor());
+
+        // 定位x軸位置
+        switch (imageItem.getPositionX()) {
+            case LEFT:
+                drawRectangleItem.setX(0);
+                break;
+            case RIGHT:
+                drawRectangleItem.setX(this.width - drawRectangleItem.getWidth());
+                break;
+            case MIDDLE:
+                drawRectangleItem.setX((this.width - drawRectangleItem.getWidth()) / 2);
+                break;
+            default:
+                drawRectangleItem.setX(imageItem.getX());
+                break;
+        }
+        // 定位y軸位置
+        switch (imageItem.getPositionY()) {
+            case TOP:
+                drawRectangleItem.setY(0);
+                break;
+            case BOTTOM:
+                drawRectangleItem.setY(this.height - drawRectangleItem.getHeight());
+                break;
+            case MIDDLE:
+                drawRectangleItem.setY((this.height - drawRectangleItem.getHeight()) / 2);
+                break;
+            default:
+                drawRectangleItem.setY(imageItem.getY());
+                break;
+        }
+        return drawRectangleItem;
+    }
+
+    /** 建立要繪製的矩形項目 */
+    private DrawRectangleItem buildDrawRectangleItem(Graphics2D graphics, ImageItem imageItem) {
+        Rectangle rectangle = (Rectangle) imageItem.getItem();
+        DrawRectangleItem drawRectangleItem = new DrawRectangleItem();
+        drawRectangleItem.setHeight(rectangle.getHeight());
+        drawRectangleItem.setWidth(rectangle.getWidth());
+        drawRectangleItem.setColor(rectangle.getColor());
+        drawRectangleItem.setStrokeWidth(rectangle.getStrokeWidth());
+        drawRectangleItem.setStrokeColor(rectangle.getStrokeColor());
+        drawRectangleItem.setCornerRadius(rectangle.getCornerRadius());
+        switch (imageItem.getPositionX()) {
+            case LEFT:
+                drawRectangleItem.setX(0);
+                break;
+            case RIGHT:
+                drawRectangleItem.setX(this.width - rectangle.getWidth());
+                break;
+            case MIDDLE:
+                drawRectangleItem.setX((this.width - rectangle.getWidth()) / 2);
+                break;
+            default:
+                drawRectangleItem.setX(imageItem.getX());
+                break;
+        }
+        switch (imageItem.getPositionY()) {
+            case TOP:
+                drawRectangleItem.setY(0);
+                break;
+            case BOTTOM:
+                drawRectangleItem.setY(this.height - rectangle.getHeight());
+                break;
+            case MIDDLE:
+                drawRectangleItem.setY((this.height - rectangle.getHeight()) / 2);
+                break;
+            default:
+                drawRectangleItem.setY(imageItem.getY());
+                break;
+        }
+        return drawRectangleItem;
+    }
+
+    /** 繪製矩形項目 */
+    private void drawRectangleItem(Graphics2D graphics, DrawRectangleItem drawRectangleItem) {
+        if (drawRectangleItem.getCornerRadius() > 0) {
+            // 使用圓角矩形
+            if (drawRectangleItem.getStrokeWidth() > 0) {
+                Shape shape =
+                        new RoundRectangle2D.Float(
+                                drawRectangleItem.getX()
+                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
+                                drawRectangleItem.getY()
+                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
+                                drawRectangleItem.getWidth() - drawRectangleItem.getStrokeWidth(),
+                                drawRectangleItem.getHeight() - drawRectangleItem.getStrokeWidth(),
+                                drawRectangleItem.getCornerRadius(),
+                                drawRectangleItem.getCornerRadius());
+                graphics.setColor(drawRectangleItem.getColor());
+                graphics.fill(shape);
+                Stroke oldStroke = graphics.getStroke();
+                graphics.setColor(drawRectangleItem.getStrokeColor());
+                graphics.setStroke(new BasicStroke(drawRectangleItem.getStrokeWidth()));
+                graphics.draw(shape);
+                graphics.setStroke(oldStroke);
+            } else {
+                graphics.setColor(drawRectangleItem.getColor());
+                graphics.fill(
+                        new RoundRectangle2D.Float(
+                                drawRectangleItem.getX(),
+                                drawRectangleItem.getY(),
+                                drawRectangleItem.getWidth(),
+                                drawRectangleItem.getHeight(),
+                                drawRectangleItem.getCornerRadius(),
+                                drawRectangleItem.getCornerRadius()));
+            }
+        } else {
+            // 使用矩形
+            if (drawRectangleItem.getStrokeWidth() > 0) {
+                Shape shape =
+                        new Rectangle2D.Float(
+                                drawRectangleItem.getX()
+                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
+                                drawRectangleItem.getY()
+                                        + ((float) drawRectangleItem.getStrokeWidth() / 2),
+                                drawRectangleItem.getWidth() - drawRectangleItem.getStrokeWidth(),
+                                drawRectangleItem.getHeight() - drawRectangleItem.getStrokeWidth());
+                graphics.setColor(drawRectangleItem.getColor());
+                graphics.fill(shape);
+                Stroke oldStroke = graphics.getStroke();
+                graphics.setColor(drawRectangleItem.getStrokeColor());
+                graphics.setStroke(new BasicStroke(drawRectangleItem.getStrokeWidth()));
+                graphics.draw(shape);
+                graphics.setStroke(oldStroke);
+            } else {
+                graphics.setColor(drawRectangleItem.getColor());
+                graphics.fill(
+                        new Rectangle2D.Float(
+                                drawRectangleItem.getX(),
+                                drawRectangleItem.getY(),
+                                drawRectangleItem.getWidth(),
+                                drawRectangleItem.getHeight()));
+            }
+        }
+    }
+
+    /** 建立要繪製的橢圓項目 */
+    private DrawEllipseItem buildDrawEllipseItem(Graphics2D graphics, ImageItem imageItem) {
+        Ellipse ellipse = (Ellipse) imageItem.getItem();
+        DrawEllipseItem drawEllipseItem = new DrawEllipseItem();
+        drawEllipseItem.setHeight(ellipse.getHeight());
+        drawEllipseItem.setWidth(ellipse.getWidth());
+        drawEllipseItem.setColor(ellipse.getColor());
+        drawEllipseItem.setStrokeWidth(ellipse.getStrokeWidth());
+        drawEllipseItem.setStrokeColor(ellipse.getStrokeColor());
+        switch (imageItem.getPositionX()) {
+            case LEFT:
+                drawEllipseItem.setX(0);
+                break;
+            case RIGHT:
+                drawEllipseItem.setX(this.width - ellipse.getWidth());
+                break;
+            case MIDDLE:
+                drawEllipseItem.setX((this.width - ellipse.getWidth()) / 2);
+                break;
+            default:
+                drawEllipseItem.setX(imageItem.getX());
+                break;
+        }
+        switch (imageItem.getPositionY()) {
+            case TOP:
+                drawEllipseItem.setY(0);
+                break;
+            case BOTTOM:
+                drawEllipseItem.setY(this.height - ellipse.getHeight());
+                break;
+            case MIDDLE:
+                drawEllipseItem.setY((this.height - ellipse.getHeight()) / 2);
+                break;
+            default:
+                drawEllipseItem.setY(imageItem.getY());
+                break;
+        }
+        return drawEllipseItem;
+    }
+
+    /** 繪製橢圓項目 */
+    private void drawEllipseItem(Graphics2D graphics, DrawEllipseItem drawEllipseItem) {
+        // 使用圓角矩形
+        if (drawEllipseItem.getStrokeWidth() > 0) {
+            Shape shape =
+                    new Ellipse2D.Float(
+                            drawEllipseItem.getX() + ((float) drawEllipseItem.getStrokeWidth() / 2),
+                            drawEllipseItem.getY() + ((float) drawEllipseItem.getStrokeWidth() / 2),
+                            drawEllipseItem.getWidth() - drawEllipseItem.getStrokeWidth(),
+                            drawEllipseItem.getHeight() - drawEllipseItem.getStrokeWidth());
+            graphics.setColor(drawEllipseItem.getColor());
+            graphics.fill(shape);
+            Stroke oldStroke = graphics.getStroke();
+            graphics.setColor(drawEllipseItem.getStrokeColor());
+            graphics.setStroke(new BasicStroke(drawEllipseItem.getStrokeWidth()));
+            graphics.draw(shape);
+            graphics.setStroke(oldStroke);
+        } else {
+            graphics.setColor(drawEllipseItem.getColor());
+            graphics.fill(
+                    new Ellipse2D.Float(
+                            drawEllipseItem.getX(),
+                            drawEllipseItem.getY(),
+                            drawEllipseItem.getWidth(),
+                            drawEllipseItem.getHeight()));
+        }
+    }
+
+    /** 分段處理器 */
+    interface BandHandler {
+
+        /**
+         * @param band 分段畫布
+         * @param rowCount 該段有效列數(最後一段可能小於畫布高)
+         */
+        void handle(BufferedImage band, int rowCount) throws IOException;
+    }
+
+    @Getter
+    @Setter
+    abstract static class DrawItem {
+
+        private Integer x;
+
+        private Integer y;
+
+        /**
+         * 繪製範圍(包含抗鋸齒及邊線，可大於實際繪製範圍)
+         *
+         * @return 繪製範圍
+         */
+        abstract java.awt.Rectangle getBounds();
+
+        /**
+         * 完全不透明的範圍，繪製後會完全覆蓋範圍內的像素
+         *
+         * @return 不透明範圍，不會完全覆蓋時為null
+         */
+        java.awt.Rectangle getOpaqueBounds() {
+            return null;
+        }
+
+        /**
+         * 是否不會繪製任何像素
+         *
+         * @return 是否不會繪製任何像素
+         */
+        boolean isBlank() {
+            return false;
+        }
+    }
+
+    @Getter
+    @Setter
+    static class DrawRectangleItem extends DrawItem {
+
+        private Integer width;
+
+        private Integer height;
+
+        private Color color;
+
+        private Integer strokeWidth = 0;
+
+        private Color strokeColor = Color.BLACK;
+
+        private Integer cornerRadius = 0;
+
+        @Override
+        java.awt.Rectangle getBounds() {
+            return new java.awt.Rectangle(
+                    getX() - 1, getY() - 1, this.width + 2, this.height + 2);
+        }
+
+        @Override
+        java.awt.Rectangle getOpaqueBounds() {
+            if (this.cornerRadius > 0 || this.strokeWidth > 0 || this.color.getAlpha() < 255) {
+                return null;
+            }
+            // 內縮1像素，不受抗鋸齒及座標調整影響
+            return new java.awt.Rectangle(
+                    getX() + 1, getY() + 1, this.width - 2, this.height - 2);
+        }
+
+        @Override
+        boolean isBlank() {
+            return this.width <= 0
+                    || this.height <= 0
+                    || (this.color.getAlpha() == 0
+                            && (this.strokeWidth <= 0 || this.strokeColor.getAlpha() == 0));
+        }
+    }
+
+    @Getter
+    @Setter
+    static class DrawEllipseItem extends DrawItem {
+
+        private Integer width;
+
+        private Integer height;
+
+        private Color color;
+
+        private Integer strokeWidth = 0;
+
+        private Color strokeColor = Color.BLACK;
+
+        @Override
+        java.awt.Rectangle getBounds() {
+            return new java.awt.Rectangle(
+                    getX() - 1, getY() - 1, this.width + 2, this.height + 2);
+        }
+
+        @Override
+        boolean isBlank() {
+            return this.width <= 0
+                    || this.height <= 0
+                    || (this.color.getAlpha() == 0
+                            && (this.strokeWidth <= 0 || this.strokeColor.getAlpha() == 0));
+        }
+    }
+
+    @Getter
+    @Setter
+    static class DrawTextItem extends DrawItem {
+
+        private String text;
+
+        private Color color;
+
+        private Font font;
+
+        @Override
+        java.awt.Rectangle getBounds() {
+            // 字形可能超出基準線及字寬(斜體、降部等)，上下左右各保留一個字體大小
+            int size = this.font.getSize();
+            int textWidth = FontAdvanceTable.of(this.font).stringWidth(this.text);
+            return new java.awt.Rectangle(
+                    getX() - size, getY() - size, textWidth + size * 2, size * 3);
+        }
+
+        @Override
+        boolean isBlank() {
+            return this.text.isEmpty() || this.color.getAlpha() == 0;
+        }
+    }
+
+    @Getter
+    @Setter
+    static class DrawImageItem extends DrawItem {
+
+        private Integer width;
+
+        private Integer height;
+
+        /** 尚未解碼的來源圖片(剔除後解碼) */
+        private Image source;
+
+        /** 尚未繪製的組合物件(剔除後繪製) */
+        private Composite composite;
+
+        private BufferedImage image;
+
+        @Override
+        java.awt.Rectangle getBounds() {
+            return new java.awt.Rectangle(getX(), getY(), this.width, this.height);
+        }
+
+        @Override
+        java.awt.Rectangle getOpaqueBounds() {
+            if (null == this.image || this.image.getTransparency() != Transparency.OPAQUE) {
+                return null;
+            }
+            return getBounds();
+        }
+
+        @Override
+        boolean isBlank() {
+            return this.width <= 0 || this.height <= 0;
+        }
+    }
+}
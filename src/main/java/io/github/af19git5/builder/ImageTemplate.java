@@ -0,0 +1,499 @@
+package io.github.af19git5.builder;
+
+import io.github.af19git5.builder.ImageBuilder.ImageItem;
+import io.github.af19git5.builder.ImageRenderer.DrawItem;
+import io.github.af19git5.entity.Text;
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.io.ByteBufferAllocator;
+import io.github.af19git5.type.EncoderOptions;
+import io.github.af19git5.type.OutputType;
+import io.github.af19git5.type.PixelFormat;
+import io.github.af19git5.utils.ImageWriteUtils;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 圖片繪製樣板
+ *
+ * <p>由{@link ImageBuilder#compile()}產生，非樣板欄位的物件已完成排版，繪製時僅需重新排版有設定樣板欄位名稱的文字物件。
+ * 第一個樣板欄位之前的物件於首次繪製時合成為底圖，之後每次繪製僅需複製底圖。不需繪製的物件於編譯時剔除。樣板建立後不可變動，可於多執行緒同時繪製
+ *
+ * @author Jimmy Kang
+ */
+public class ImageTemplate {
+
+    private final ImageRenderer renderer;
+
+    /** 畫布像素格式 */
+    private final PixelFormat pixelFormat;
+
+    /** 第一個樣板欄位之前的繪製項目，合成為底圖 */
+    private final List<DrawItem> baseDrawItemList;
+
+    /** 各像素格式的底圖 */
+    private final Map<PixelFormat, BufferedImage> baseLayerMap = new ConcurrentHashMap<>();
+
+    private final List<TemplateItem> templateItemList;
+
+    /** 樣板欄位名稱 */
+    @Getter private final Set<String> slotNames;
+
+    /** 編譯時剔除的項目數 */
+    private final int culledCount;
+
+    ImageTemplate(ImageRenderer renderer, PixelFormat pixelFormat, List<ImageItem> itemList)
+            throws ImageException {
+        this.renderer = renderer;
+        this.pixelFormat = pixelFormat;
+        List<DrawItem> baseDrawItemList = new ArrayList<>();
+        List<TemplateItem> templateItemList = new ArrayList<>();
+        Set<String> slotNames = new LinkedHashSet<>();
+        Graphics2D graphics = renderer.createMeasureGraphics();
+        try {
+            Font defaultFont = graphics.getFont();
+            for (ImageItem imageItem : itemList) {
+                if (imageItem.getItem() instanceof Text
+                        && null != ((Text) imageItem.getItem()).getSlotName()) {
+                    // 樣板欄位保留一份複製的文字物件，避免外部修改影響樣板
+                    Text text = (Text) imageItem.getItem();
+                    slotNames.add(text.getSlotName());
+                    templateItemList.add(
+                            new TemplateItem(
+                                    new ImageItem(
+                                            imageItem.getX(),
+                                            imageItem.getY(),
+                                            imageItem.getPositionX(),
+                                            imageItem.getPositionY(),
+                                            text.copy(text.getText())),
+                                    null));
+                } else if (templateItemList.isEmpty()) {
+                    baseDrawItemList.addAll(renderer.layout(graphics, imageItem, defaultFont));
+                } else {
+                    templateItemList.add(
+                            new TemplateItem(
+                                    null, renderer.layout(graphics, imageItem, defaultFont)));
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        // 剔除不需繪製的項目，樣板欄位內容不固定，不作為遮蔽物
+        List<DrawItem> drawItemList = new ArrayList<>(baseDrawItemList);
+        for (TemplateItem templateItem : templateItemList) {
+            if (null == templateItem.getSlotItem()) {
+                drawItemList.addAll(templateItem.getDrawItemList());
+            }
+        }
+        Set<DrawItem> visibleSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        visibleSet.addAll(renderer.cull(drawItemList));
+        baseDrawItemList.removeIf(drawItem -> !visibleSet.contains(drawItem));
+        for (TemplateItem templateItem : templateItemList) {
+            if (null == templateItem.getSlotItem()) {
+                templateItem.getDrawItemList().removeIf(drawItem -> !visibleSet.contains(drawItem));
+            }
+        }
+        this.culledCount = drawItemList.size() - visibleSet.size();
+        this.baseDrawItemList = Collections.unmodifiableList(baseDrawItemList);
+        this.templateItemList = Collections.unmodifiableList(templateItemList);
+        this.slotNames = Collections.unmodifiableSet(slotNames);
+    }
+
+    /**
+     * 建立至輸出流
+     *
+     * @param outputType 輸出類別
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param outputStream 輸出流
+     */
+    public void buildOutputStream(
+            OutputType outputType, Map<String, String> slotValues, OutputStream outputStream)
+            throws ImageException {
+        buildOutputStream(outputType, EncoderOptions.DEFAULT, slotValues, outputStream);
+    }
+
+    /**
+     * 建立至輸出流
+     *
+     * @param outputType 輸出類別
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param outputStream 輸出流
+     */
+    public void buildOutputStream(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            OutputStream outputStream)
+            throws ImageException {
+        try {
+            ImageWriteUtils.write(
+                    render(outputType.isAlpha(), slotValues).getImage(),
+                    outputType,
+                    options,
+                    outputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 建立byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return 圖檔byte陣列
+     */
+    public byte[] buildBytes(OutputType outputType, Map<String, String> slotValues)
+            throws ImageException {
+        return buildBytes(outputType, EncoderOptions.DEFAULT, slotValues);
+    }
+
+    /**
+     * 建立byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return 圖檔byte陣列
+     */
+    public byte[] buildBytes(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues)
+            throws ImageException {
+        return ImageOutput.toBytes(
+                outputStream -> buildOutputStream(outputType, options, slotValues, outputStream));
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(
+            OutputType outputType, Map<String, String> slotValues, WritableByteChannel channel)
+            throws ImageException {
+        buildTo(outputType, EncoderOptions.DEFAULT, slotValues, channel);
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull WritableByteChannel channel)
+            throws ImageException {
+        ImageOutput.toChannel(
+                outputStream -> buildOutputStream(outputType, options, slotValues, outputStream),
+                channel);
+    }
+
+    /**
+     * 建立heap緩衝區
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(OutputType outputType, Map<String, String> slotValues)
+            throws ImageException {
+        return buildByteBuffer(
+                outputType, EncoderOptions.DEFAULT, slotValues, ByteBufferAllocator.HEAP);
+    }
+
+    /**
+     * 建立緩衝區，編碼結果直接寫入由配置器取得的緩衝區(可使用緩衝區池)，使用完畢後由呼叫端交還配置器
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param allocator 緩衝區配置器
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull ByteBufferAllocator allocator)
+            throws ImageException {
+        return ImageOutput.toByteBuffer(
+                outputStream -> buildOutputStream(outputType, options, slotValues, outputStream),
+                allocator,
+                this.renderer.getWidth(),
+                this.renderer.getHeight());
+    }
+
+    /**
+     * 建立base64圖檔
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return base64圖檔
+     */
+    public String buildBase64(OutputType outputType, Map<String, String> slotValues)
+            throws ImageException {
+        return buildBase64(outputType, EncoderOptions.DEFAULT, slotValues);
+    }
+
+    /**
+     * 建立base64圖檔
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return base64圖檔
+     */
+    public String buildBase64(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendBase64(outputType, options, slotValues, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立base64圖檔至輸出流，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildBase64(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toBase64(
+                base64OutputStream ->
+                        buildOutputStream(outputType, options, slotValues, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立base64圖檔並附加至目標，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendBase64(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendBase64(
+                outputStream -> buildOutputStream(outputType, options, slotValues, outputStream),
+                appendable);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return data URI
+     */
+    public String buildDataUri(OutputType outputType, Map<String, String> slotValues)
+            throws ImageException {
+        return buildDataUri(outputType, EncoderOptions.DEFAULT, slotValues);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return data URI
+     */
+    public String buildDataUri(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendDataUri(outputType, options, slotValues, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立data URI至輸出流
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildDataUri(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toDataUri(
+                outputType,
+                base64OutputStream ->
+                        buildOutputStream(outputType, options, slotValues, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立data URI並附加至目標
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendDataUri(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendDataUri(
+                outputType,
+                outputStream -> buildOutputStream(outputType, options, slotValues, outputStream),
+                appendable);
+    }
+
+    /**
+     * 建立至檔案
+     *
+     * @param outputType 輸出格式
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param file 輸出檔案位置
+     */
+    public void buildFile(OutputType outputType, Map<String, String> slotValues, File file)
+            throws ImageException {
+        buildFile(outputType, EncoderOptions.DEFAULT, slotValues, file);
+    }
+
+    /**
+     * 建立至檔案
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @param file 輸出檔案位置
+     */
+    public void buildFile(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            Map<String, String> slotValues,
+            File file)
+            throws ImageException {
+        try {
+            ImageWriteUtils.write(
+                    render(outputType.isAlpha(), slotValues).getImage(),
+                    outputType,
+                    options,
+                    file);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 繪製為畫面，可重複輸出為多種格式或縮放為多種大小，不需重新繪製
+     *
+     * <p>像素格式為AUTO時保留透明度
+     *
+     * @param slotValues 樣板欄位內容(未提供的欄位使用原文字內容)
+     * @return 繪製完成的畫面
+     */
+    public RenderedFrame render(Map<String, String> slotValues) throws ImageException {
+        return render(true, slotValues);
+    }
+
+    private RenderedFrame render(boolean alpha, @NonNull Map<String, String> slotValues)
+            throws ImageException {
+        BufferedImage bufferedImage;
+        Graphics2D graphics;
+        if (this.baseDrawItemList.isEmpty()) {
+            bufferedImage = this.renderer.createCanvas(this.pixelFormat, alpha);
+            graphics = this.renderer.createGraphics(bufferedImage);
+        } else {
+            BufferedImage baseLayer =
+                    this.baseLayerMap.computeIfAbsent(
+                            this.pixelFormat.resolve(alpha),
+                            pixelFormat ->
+                                    this.renderer.createBaseLayer(
+                                            pixelFormat, this.baseDrawItemList));
+            bufferedImage = this.renderer.copyCanvas(baseLayer);
+            graphics = this.renderer.createOverlayGraphics(bufferedImage);
+        }
+        int culledCount = this.culledCount;
+        try {
+            Font defaultFont = graphics.getFont();
+            for (TemplateItem templateItem : this.templateItemList) {
+                if (null == templateItem.getSlotItem()) {
+                    this.renderer.draw(graphics, templateItem.getDrawItemList());
+                    continue;
+                }
+                // 僅樣板欄位需要於每次繪製時重新排版
+                ImageItem slotItem = templateItem.getSlotItem();
+                Text text = (Text) slotItem.getItem();
+                String value = slotValues.get(text.getSlotName());
+                if (null != value) {
+                    slotItem =
+                            new ImageItem(
+                                    slotItem.getX(),
+                                    slotItem.getY(),
+                                    slotItem.getPositionX(),
+                                    slotItem.getPositionY(),
+                                    text.copy(value));
+                }
+                List<DrawItem> drawItemList = this.renderer.layout(graphics, slotItem, defaultFont);
+                List<DrawItem> visibleList = this.renderer.cull(drawItemList);
+                culledCount += drawItemList.size() - visibleList.size();
+                this.renderer.draw(graphics, visibleList);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return new RenderedFrame(bufferedImage, culledCount);
+    }
+
+    @Getter
+    private static class TemplateItem {
+
+        /** 樣板欄位物件 */
+        private final ImageItem slotItem;
+
+        /** 已完成排版的繪製項目 */
+        private final List<DrawItem> drawItemList;
+
+        public TemplateItem(ImageItem slotItem, List<DrawItem> drawItemList) {
+            this.slotItem = slotItem;
+            this.drawItemList = drawItemList;
+        }
+    }
+}
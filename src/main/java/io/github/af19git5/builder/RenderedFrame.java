@@ -0,0 +1,354 @@
+package io.github.af19git5.builder;
+
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.io.ByteBufferAllocator;
+import io.github.af19git5.type.EncoderOptions;
+import io.github.af19git5.type.OutputType;
+import io.github.af19git5.type.ScaleType;
+import io.github.af19git5.utils.ImageScaleUtils;
+import io.github.af19git5.utils.ImageWriteUtils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 繪製完成的畫面
+ *
+ * <p>由{@link ImageBuilder#render()}或{@link ImageTemplate#render(java.util.Map)}產生。同一畫面可輸出為多種格式，
+ * 或縮放出多種大小，每次輸出僅需編碼，不需重新繪製。畫面建立後不可變動，可於多執行緒同時輸出
+ *
+ * @author Jimmy Kang
+ */
+public class RenderedFrame {
+
+    /** 畫面圖片(僅供套件內輸出使用，不可修改) */
+    @Getter(AccessLevel.PACKAGE)
+    private final BufferedImage image;
+
+    /** 繪製前剔除的項目數 */
+    private final int culledCount;
+
+    RenderedFrame(BufferedImage image, int culledCount) {
+        this.image = image;
+        this.culledCount = culledCount;
+    }
+
+    /** 畫面寬 */
+    public int getWidth() {
+        return this.image.getWidth();
+    }
+
+    /** 畫面高 */
+    public int getHeight() {
+        return this.image.getHeight();
+    }
+
+    /**
+     * 繪製前剔除的項目數(位於畫布外、不會繪製任何像素或被不透明項目完全遮蔽的項目，文字每行各計為一個項目)
+     *
+     * @return 剔除的項目數
+     */
+    public int getCulledCount() {
+        return this.culledCount;
+    }
+
+    /**
+     * 縮放為指定大小的新畫面，以逐次減半的方式縮小
+     *
+     * @param width 目標寬
+     * @param height 目標高
+     * @return 縮放後畫面
+     */
+    public RenderedFrame scale(int width, int height) {
+        return scale(width, height, ScaleType.PROGRESSIVE);
+    }
+
+    /**
+     * 縮放為指定大小的新畫面
+     *
+     * @param width 目標寬
+     * @param height 目標高
+     * @param scaleType 縮放演算法
+     * @return 縮放後畫面
+     */
+    public RenderedFrame scale(int width, int height, @NonNull ScaleType scaleType) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("縮放大小需大於0");
+        }
+        if (width == getWidth() && height == getHeight()) {
+            return this;
+        }
+        return new RenderedFrame(
+                ImageScaleUtils.scale(this.image, width, height, scaleType), this.culledCount);
+    }
+
+    /**
+     * 依比例縮放為新畫面(例如0.5為一半大小)
+     *
+     * @param ratio 縮放比例
+     * @return 縮放後畫面
+     */
+    public RenderedFrame scale(double ratio) {
+        return scale(
+                Math.max(1, (int) Math.round(getWidth() * ratio)),
+                Math.max(1, (int) Math.round(getHeight() * ratio)));
+    }
+
+    /**
+     * 建立至輸出流
+     *
+     * @param outputType 輸出類別
+     * @param outputStream 輸出流
+     */
+    public void buildOutputStream(OutputType outputType, OutputStream outputStream)
+            throws ImageException {
+        buildOutputStream(outputType, EncoderOptions.DEFAULT, outputStream);
+    }
+
+    /**
+     * 建立至輸出流
+     *
+     * @param outputType 輸出類別
+     * @param options 編碼參數
+     * @param outputStream 輸出流
+     */
+    public void buildOutputStream(
+            @NonNull OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        try {
+            ImageWriteUtils.write(this.image, outputType, options, outputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 建立byte陣列
+     *
+     * @param outputType 輸出格式
+     * @return 圖檔byte陣列
+     */
+    public byte[] buildBytes(OutputType outputType) throws ImageException {
+        return buildBytes(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return 圖檔byte陣列
+     */
+    public byte[] buildBytes(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        return ImageOutput.toBytes(
+                outputStream -> buildOutputStream(outputType, options, outputStream));
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(OutputType outputType, WritableByteChannel channel)
+            throws ImageException {
+        buildTo(outputType, EncoderOptions.DEFAULT, channel);
+    }
+
+    /**
+     * 建立至通道，編碼結果直接寫入通道，不會另外保留完整內容
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param channel 輸出通道(需為阻塞模式，不會被關閉)
+     */
+    public void buildTo(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull WritableByteChannel channel)
+            throws ImageException {
+        ImageOutput.toChannel(
+                outputStream -> buildOutputStream(outputType, options, outputStream), channel);
+    }
+
+    /**
+     * 建立heap緩衝區
+     *
+     * @param outputType 輸出格式
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(OutputType outputType) throws ImageException {
+        return buildByteBuffer(outputType, EncoderOptions.DEFAULT, ByteBufferAllocator.HEAP);
+    }
+
+    /**
+     * 建立緩衝區，編碼結果直接寫入由配置器取得的緩衝區(可使用緩衝區池)，使用完畢後由呼叫端交還配置器
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param allocator 緩衝區配置器
+     * @return 圖檔內容(position為0，limit為圖檔長度)
+     */
+    public ByteBuffer buildByteBuffer(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull ByteBufferAllocator allocator)
+            throws ImageException {
+        return ImageOutput.toByteBuffer(
+                outputStream -> buildOutputStream(outputType, options, outputStream),
+                allocator,
+                getWidth(),
+                getHeight());
+    }
+
+    /**
+     * 建立base64圖檔
+     *
+     * @param outputType 輸出格式
+     * @return base64圖檔
+     */
+    public String buildBase64(OutputType outputType) throws ImageException {
+        return buildBase64(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立base64圖檔
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return base64圖檔
+     */
+    public String buildBase64(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendBase64(outputType, options, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立base64圖檔至輸出流，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildBase64(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toBase64(
+                base64OutputStream -> buildOutputStream(outputType, options, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立base64圖檔並附加至目標，編碼過程中直接寫入，不會產生完整的圖檔byte陣列
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendBase64(
+            OutputType outputType, @NonNull EncoderOptions options, @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendBase64(
+                outputStream -> buildOutputStream(outputType, options, outputStream), appendable);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @return data URI
+     */
+    public String buildDataUri(OutputType outputType) throws ImageException {
+        return buildDataUri(outputType, EncoderOptions.DEFAULT);
+    }
+
+    /**
+     * 建立data URI(data:image/...;base64,...)
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @return data URI
+     */
+    public String buildDataUri(OutputType outputType, @NonNull EncoderOptions options)
+            throws ImageException {
+        StringBuilder builder = new StringBuilder();
+        appendDataUri(outputType, options, builder);
+        return builder.toString();
+    }
+
+    /**
+     * 建立data URI至輸出流
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public void buildDataUri(
+            OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws ImageException {
+        ImageOutput.toDataUri(
+                outputType,
+                base64OutputStream -> buildOutputStream(outputType, options, base64OutputStream),
+                outputStream);
+    }
+
+    /**
+     * 建立data URI並附加至目標
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param appendable 寫入目標(例如StringBuilder或Writer，不會被關閉)
+     */
+    public void appendDataUri(
+            OutputType outputType, @NonNull EncoderOptions options, @NonNull Appendable appendable)
+            throws ImageException {
+        ImageOutput.appendDataUri(
+                outputType,
+                outputStream -> buildOutputStream(outputType, options, outputStream),
+                appendable);
+    }
+
+    /**
+     * 建立至檔案
+     *
+     * @param outputType 輸出格式
+     * @param file 輸出檔案位置
+     */
+    public void buildFile(OutputType outputType, File file) throws ImageException {
+        buildFile(outputType, EncoderOptions.DEFAULT, file);
+    }
+
+    /**
+     * 建立至檔案
+     *
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param file 輸出檔案位置
+     */
+    public void buildFile(
+            @NonNull OutputType outputType, @NonNull EncoderOptions options, @NonNull File file)
+            throws ImageException {
+        try {
+            ImageWriteUtils.write(this.image, outputType, options, file);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.af19git5.cache;
+
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 組合物件繪製結果共用快取
+ *
+ * <p>以內嵌圖片建構器的內容識別為鍵值，內容相同的組合物件(即使為不同物件)共用同一份繪製結果，快取大小以位元組計算。快取回傳的圖片會被多個繪製共用，呼叫端不可修改
+ *
+ * @author Jimmy Kang
+ */
+public class CompositeCache {
+
+    /** 預設快取上限(32MB) */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final LruCache<Object, BufferedImage> CACHE =
+            new LruCache<>(DEFAULT_MAX_BYTES, CompositeCache::sizeOf);
+
+    /**
+     * 取得繪製結果
+     *
+     * @param contentKey 內容識別(依equals比對)
+     * @return 繪製結果，快取中不存在時為null
+     */
+    public static BufferedImage get(@NonNull Object contentKey) {
+        return CACHE.get(contentKey);
+    }
+
+    /**
+     * 加入繪製結果
+     *
+     * @param contentKey 內容識別(依equals比對)
+     * @param image 繪製結果
+     */
+    public static void put(@NonNull Object contentKey, @NonNull BufferedImage image) {
+        CACHE.put(contentKey, image);
+    }
+
+    /**
+     * 設定快取上限
+     *
+     * @param maxBytes 快取上限(位元組，0為不快取)
+     */
+    public static void setMaxBytes(long maxBytes) {
+        CACHE.setMaxWeight(maxBytes);
+    }
+
+    /** 快取上限(位元組) */
+    public static long getMaxBytes() {
+        return CACHE.getMaxWeight();
+    }
+
+    /** 目前快取大小(位元組) */
+    public static long getBytes() {
+        return CACHE.getWeight();
+    }
+
+    /** 命中次數 */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /** 未命中次數 */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /** 因超過上限而移除的次數 */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /** 清除快取 */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        // 畫布像素格式為int或3 byte，以int估算
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
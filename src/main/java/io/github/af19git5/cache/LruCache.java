@@ -0,0 +1,172 @@
+package io.github.af19git5.cache;
+
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * 依權重限制大小的LRU快取
+ *
+ * <p>總權重超過上限時，會由最久未使用的項目開始移除。所有操作皆為同步方法，可於多執行緒共用
+ *
+ * @author Jimmy Kang
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ToLongFunction<V> weigher;
+
+    /** 權重上限 */
+    private long maxWeight;
+
+    /** 目前總權重 */
+    private long weight;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    /**
+     * @param maxWeight 權重上限(0為不快取)
+     * @param weigher 計算項目權重
+     */
+    public LruCache(long maxWeight, @NonNull ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * 取得快取項目
+     *
+     * @param key 鍵值
+     * @return 快取項目，不存在時為null
+     */
+    public synchronized V get(@NonNull K key) {
+        Entry<V> entry = this.map.get(key);
+        if (null == entry) {
+            this.missCount++;
+            return null;
+        }
+        this.hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * 加入快取項目，單一項目權重超過上限時不會加入
+     *
+     * @param key 鍵值
+     * @param value 項目
+     */
+    public synchronized void put(@NonNull K key, @NonNull V value) {
+        long valueWeight = this.weigher.applyAsLong(value);
+        if (valueWeight > this.maxWeight) {
+            return;
+        }
+        Entry<V> previous = this.map.put(key, new Entry<>(value, valueWeight));
+        if (null != previous) {
+            this.weight -= previous.weight;
+        }
+        this.weight += valueWeight;
+        evict();
+    }
+
+    /**
+     * 移除快取項目
+     *
+     * @param key 鍵值
+     */
+    public synchronized void remove(@NonNull K key) {
+        Entry<V> previous = this.map.remove(key);
+        if (null != previous) {
+            this.weight -= previous.weight;
+        }
+    }
+
+    /**
+     * 移除鍵值符合條件的快取項目
+     *
+     * @param predicate 移除條件
+     */
+    public synchronized void removeIf(@NonNull Predicate<K> predicate) {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                this.weight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    /** 清除所有快取項目 */
+    public synchronized void clear() {
+        this.map.clear();
+        this.weight = 0;
+    }
+
+    /**
+     * 設定權重上限，超過的部分會立即移除
+     *
+     * @param maxWeight 權重上限(0為不快取)
+     */
+    public synchronized void setMaxWeight(long maxWeight) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("權重上限不可小於0");
+        }
+        this.maxWeight = maxWeight;
+        evict();
+    }
+
+    public synchronized long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    public synchronized int size() {
+        return this.map.size();
+    }
+
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /** 移除最久未使用的項目直到總權重不超過上限 */
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> iterator = this.map.entrySet().iterator();
+        while (this.weight > this.maxWeight && iterator.hasNext()) {
+            this.weight -= iterator.next().getValue().weight;
+            iterator.remove();
+            this.evictionCount++;
+        }
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long weight;
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
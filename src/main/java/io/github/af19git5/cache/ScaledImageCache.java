@@ -0,0 +1,138 @@
+package io.github.af19git5.cache;
+
+import io.github.af19git5.type.ScaleType;
+
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * 縮放後圖片共用快取
+ *
+ * <p>以來源識別、目標寬高及縮放演算法為鍵值，快取大小以位元組計算。命中時不需解碼及縮放來源圖片。快取回傳的圖片會被多個繪製共用，呼叫端不可修改
+ *
+ * @author Jimmy Kang
+ */
+public class ScaledImageCache {
+
+    /** 預設快取上限(64MB) */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final LruCache<Key, BufferedImage> CACHE =
+            new LruCache<>(DEFAULT_MAX_BYTES, ScaledImageCache::sizeOf);
+
+    /**
+     * 取得縮放後圖片
+     *
+     * @param sourceKey 來源識別(依equals比對)
+     * @param width 目標寬
+     * @param height 目標高
+     * @param scaleType 縮放演算法
+     * @return 縮放後圖片，快取中不存在時為null
+     */
+    public static BufferedImage get(
+            @NonNull Object sourceKey, int width, int height, @NonNull ScaleType scaleType) {
+        return CACHE.get(new Key(sourceKey, width, height, scaleType));
+    }
+
+    /**
+     * 加入縮放後圖片
+     *
+     * @param sourceKey 來源識別(依equals比對)
+     * @param width 目標寬
+     * @param height 目標高
+     * @param scaleType 縮放演算法
+     * @param scaled 縮放後圖片
+     */
+    public static void put(
+            @NonNull Object sourceKey,
+            int width,
+            int height,
+            @NonNull ScaleType scaleType,
+            @NonNull BufferedImage scaled) {
+        CACHE.put(new Key(sourceKey, width, height, scaleType), scaled);
+    }
+
+    /**
+     * 設定快取上限
+     *
+     * @param maxBytes 快取上限(位元組，0為不快取)
+     */
+    public static void setMaxBytes(long maxBytes) {
+        CACHE.setMaxWeight(maxBytes);
+    }
+
+    /** 快取上限(位元組) */
+    public static long getMaxBytes() {
+        return CACHE.getMaxWeight();
+    }
+
+    /** 目前快取大小(位元組) */
+    public static long getBytes() {
+        return CACHE.getWeight();
+    }
+
+    /** 命中次數 */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /** 未命中次數 */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /** 因超過上限而移除的次數 */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /** 清除快取 */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        // 縮放結果固定為int像素
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static class Key {
+
+        private final Object sourceKey;
+
+        private final int width;
+
+        private final int height;
+
+        private final ScaleType scaleType;
+
+        private Key(Object sourceKey, int width, int height, ScaleType scaleType) {
+            this.sourceKey = sourceKey;
+            this.width = width;
+            this.height = height;
+            this.scaleType = scaleType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.width == key.width
+                    && this.height == key.height
+                    && this.scaleType == key.scaleType
+                    && this.sourceKey.equals(key.sourceKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.sourceKey, this.width, this.height, this.scaleType);
+        }
+    }
+}
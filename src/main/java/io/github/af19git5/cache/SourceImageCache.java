@@ -0,0 +1,156 @@
+package io.github.af19git5.cache;
+
+import io.github.af19git5.utils.ImageReadUtils;
+
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * 來源圖檔解碼結果共用快取
+ *
+ * <p>以檔案正規路徑、最後修改時間、檔案大小及抽樣解碼的目標大小為鍵值，檔案變更後會重新解碼。預設不啟用，需透過{@link #setMaxBytes(long)}設定快取上限後才會生效。
+ * 快取回傳的圖片會被多個物件共用，呼叫端不可修改
+ *
+ * @author Jimmy Kang
+ */
+public class SourceImageCache {
+
+    private static final LruCache<Key, BufferedImage> CACHE =
+            new LruCache<>(0, SourceImageCache::sizeOf);
+
+    /**
+     * 讀取圖檔，快取啟用時優先回傳快取中的解碼結果
+     *
+     * @param file 圖檔
+     * @return 解碼後圖片，無法解碼時為null
+     */
+    public static BufferedImage read(@NonNull File file) throws IOException {
+        return read(file, 0, 0);
+    }
+
+    /**
+     * 讀取圖檔並依目標大小抽樣解碼，快取啟用時優先回傳快取中的解碼結果
+     *
+     * @param file 圖檔
+     * @param width 目標寬(0為不指定)
+     * @param height 目標高(0為不指定)
+     * @return 解碼後圖片，無法解碼時為null
+     */
+    public static BufferedImage read(@NonNull File file, int width, int height)
+            throws IOException {
+        if (CACHE.getMaxWeight() <= 0) {
+            return ImageReadUtils.read(file, width, height);
+        }
+        // 未同時指定寬高時不會抽樣，視為相同鍵值
+        boolean isSized = width > 0 && height > 0;
+        Key key =
+                new Key(
+                        file.getCanonicalPath(),
+                        file.lastModified(),
+                        file.length(),
+                        isSized ? width : 0,
+                        isSized ? height : 0);
+        BufferedImage image = CACHE.get(key);
+        if (null == image) {
+            image = ImageReadUtils.read(file, width, height);
+            if (null != image) {
+                CACHE.put(key, image);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 設定快取上限
+     *
+     * @param maxBytes 快取上限(位元組，0為不啟用)
+     */
+    public static void setMaxBytes(long maxBytes) {
+        CACHE.setMaxWeight(maxBytes);
+    }
+
+    /** 快取上限(位元組) */
+    public static long getMaxBytes() {
+        return CACHE.getMaxWeight();
+    }
+
+    /** 目前快取大小(位元組) */
+    public static long getBytes() {
+        return CACHE.getWeight();
+    }
+
+    /** 命中次數 */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /** 未命中次數 */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /** 因超過上限而移除的次數 */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /** 清除快取 */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static long sizeOf(BufferedImage image) {
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        return (long) dataBuffer.getSize()
+                * dataBuffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(dataBuffer.getDataType())
+                / 8;
+    }
+
+    private static class Key {
+
+        private final String path;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private final int width;
+
+        private final int height;
+
+        private Key(String path, long lastModified, long length, int width, int height) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.lastModified == key.lastModified
+                    && this.length == key.length
+                    && this.width == key.width
+                    && this.height == key.height
+                    && this.path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.lastModified, this.length, this.width, this.height);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.af19git5.cache;
+
+import lombok.NonNull;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.Objects;
+
+/**
+ * 文字排版結果共用快取
+ *
+ * <p>以字體、文字內容及字體繪製環境(包含抗鋸齒與小數字寬設定)為鍵值，保存已完成字形排版的{@link TextLayout}。命中時繪製文字不需重新排版字形。
+ * {@link TextLayout}不可變動，可於多執行緒共用
+ *
+ * @author Jimmy Kang
+ */
+public class TextLayoutCache {
+
+    /** 預設快取上限(筆數) */
+    public static final long DEFAULT_MAX_ENTRIES = 8192;
+
+    private static final LruCache<Key, TextLayout> CACHE =
+            new LruCache<>(DEFAULT_MAX_ENTRIES, textLayout -> 1);
+
+    /**
+     * 取得文字排版結果，快取中不存在時進行排版並加入快取
+     *
+     * @param font 字體
+     * @param text 文字內容(不可為空字串)
+     * @param fontRenderContext 字體繪製環境
+     * @return 文字排版結果
+     */
+    public static TextLayout get(
+            @NonNull Font font, @NonNull String text, @NonNull FontRenderContext fontRenderContext) {
+        Key key = new Key(font, text, fontRenderContext);
+        TextLayout textLayout = CACHE.get(key);
+        if (null == textLayout) {
+            textLayout = new TextLayout(text, font, fontRenderContext);
+            CACHE.put(key, textLayout);
+        }
+        return textLayout;
+    }
+
+    /**
+     * 設定快取上限
+     *
+     * @param maxEntries 快取上限(筆數，0為不快取)
+     */
+    public static void setMaxEntries(long maxEntries) {
+        CACHE.setMaxWeight(maxEntries);
+    }
+
+    /** 快取上限(筆數) */
+    public static long getMaxEntries() {
+        return CACHE.getMaxWeight();
+    }
+
+    /** 目前快取筆數 */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /** 命中次數 */
+    public static long getHitCount() {
+        return CACHE.getHitCount();
+    }
+
+    /** 未命中次數 */
+    public static long getMissCount() {
+        return CACHE.getMissCount();
+    }
+
+    /** 因超過上限而移除的次數 */
+    public static long getEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /**
+     * 移除指定字體名稱的快取(同名字體重新註冊時使用)
+     *
+     * @param fontName 字體名稱({@link Font#getName()})
+     */
+    public static void remove(@NonNull String fontName) {
+        CACHE.removeIf(key -> key.font.getName().equals(fontName));
+    }
+
+    /** 清除快取 */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static class Key {
+
+        private final Font font;
+
+        private final String text;
+
+        private final FontRenderContext fontRenderContext;
+
+        private Key(Font font, String text, FontRenderContext fontRenderContext) {
+            this.font = font;
+            this.text = text;
+            this.fontRenderContext = fontRenderContext;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.text.equals(key.text)
+                    && this.font.equals(key.font)
+                    && this.fontRenderContext.equals(key.fontRenderContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.font, this.text, this.fontRenderContext);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.af19git5.entity;
+
+import io.github.af19git5.builder.ImageBuilder;
+import io.github.af19git5.type.ScaleType;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * 插入組合物件
+ *
+ * <p>將另一個圖片建構器繪製的結果作為物件插入，繪製結果以內容識別快取於{@link io.github.af19git5.cache.CompositeCache}，
+ * 內容相同的組合物件只會繪製一次，位於畫布外或被遮蔽的組合物件不會繪製。組合物件不可直接或間接包含自身，否則繪製時拋出{@link
+ * io.github.af19git5.exception.ImageException}
+ *
+ * @author Jimmy Kang
+ */
+@Getter
+@Setter
+public class Composite extends Item {
+
+    /** 內嵌的圖片建構器 */
+    private final ImageBuilder imageBuilder;
+
+    /** 縮放演算法(顯示大小與內嵌圖片大小不同時使用) */
+    private ScaleType scaleType = ScaleType.AREA_AVERAGE;
+
+    public Composite(@NonNull ImageBuilder imageBuilder) {
+        this.imageBuilder = imageBuilder;
+    }
+
+    /**
+     * @param imageBuilder 內嵌的圖片建構器
+     * @param width 顯示寬
+     * @param height 顯示高
+     */
+    public Composite(@NonNull ImageBuilder imageBuilder, int width, int height) {
+        this(imageBuilder);
+        this.width = width;
+        this.height = height;
+    }
+
+    public static Builder init(@NonNull ImageBuilder imageBuilder) {
+        return new Builder(imageBuilder);
+    }
+
+    public static Builder init(@NonNull ImageBuilder imageBuilder, int width, int height) {
+        return new Builder(imageBuilder, width, height);
+    }
+
+    public static class Builder {
+
+        private final Composite composite;
+
+        public Builder(@NonNull ImageBuilder imageBuilder) {
+            this.composite = new Composite(imageBuilder);
+        }
+
+        public Builder(@NonNull ImageBuilder imageBuilder, int width, int height) {
+            this.composite = new Composite(imageBuilder, width, height);
+        }
+
+        public Builder setWidth(int width) {
+            this.composite.setWidth(width);
+            return this;
+        }
+
+        public Builder setHeight(int height) {
+            this.composite.setHeight(height);
+            return this;
+        }
+
+        public Builder setScaleType(@NonNull ScaleType scaleType) {
+            this.composite.setScaleType(scaleType);
+            return this;
+        }
+
+        public Builder setIsStatic(boolean isStatic) {
+            this.composite.setIsStatic(isStatic);
+            return this;
+        }
+
+        public Composite build() {
+            return composite;
+        }
+    }
+}
@@ -78,6 +78,11 @@ public class Ellipse extends Item {
             return this;
         }
 
+        public Builder setIsStatic(boolean isStatic) {
+            this.rectangle.setIsStatic(isStatic);
+            return this;
+        }
+
         public Ellipse build() {
             return rectangle;
         }
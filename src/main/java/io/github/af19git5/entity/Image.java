@@ -1,39 +1,204 @@
 package io.github.af19git5.entity;
 
+import io.github.af19git5.cache.SourceImageCache;
 import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.type.ScaleType;
+import io.github.af19git5.utils.ImageReadUtils;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-
-import javax.imageio.ImageIO;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * 插入圖片物件
  *
+ * <p>建立時僅讀取檔頭取得圖片大小，像素於繪製時才會解碼，且解碼結果不會保留於物件中
+ *
  * @author Jimmy Kang
  */
-@Getter
 public class Image extends Item {
 
-    /** 圖片資源 */
-    private final BufferedImage bufferedImage;
+    /** 來源圖檔(由File建立或檔案無法映射時) */
+    private final File file;
+
+    /** 來源圖檔路徑(由File或Path建立時) */
+    private final File sourceFile;
+
+    /** 來源圖檔正規路徑(由File或Path建立時) */
+    private final String canonicalPath;
+
+    /** 來源圖檔內容(由記憶體內容或映射檔案建立時) */
+    private final ByteBuffer buffer;
+
+    /** 來源內容識別(由記憶體內容建立時，首次取得時計算) */
+    private volatile ContentKey contentKey;
+
+    /** 原始圖片寬 */
+    @Getter private final int sourceWidth;
+
+    /** 原始圖片高 */
+    @Getter private final int sourceHeight;
+
+    /** 縮放演算法 */
+    @Getter @Setter private ScaleType scaleType = ScaleType.AREA_AVERAGE;
 
     public Image(@NonNull File file) throws ImageException {
+        this(file, null, null);
+    }
+
+    public Image(@NonNull InputStream inputStream) throws ImageException {
+        // 輸入流可能於繪製前關閉，先保留原始內容(未解碼)
+        this(null, null, readAllBytes(inputStream));
+    }
+
+    /**
+     * 由記憶體內容建立，不會複製內容，建立後呼叫端不可再修改
+     *
+     * @param bytes 圖檔內容
+     */
+    public Image(@NonNull byte[] bytes) throws ImageException {
+        this(null, null, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * 由緩衝區建立，讀取範圍為目前的position至limit，不會複製內容，建立後呼叫端不可再修改
+     *
+     * @param buffer 圖檔內容(可為direct或記憶體映射緩衝區)
+     */
+    public Image(@NonNull ByteBuffer buffer) throws ImageException {
+        this(null, null, buffer.slice());
+    }
+
+    /**
+     * 由檔案路徑建立，檔案會以記憶體映射方式讀取，不會複製至heap。超過2GB無法映射的檔案改由檔案串流讀取
+     *
+     * @param path 圖檔路徑
+     */
+    public Image(@NonNull Path path) throws ImageException {
+        this(null, path, map(path));
+    }
+
+    private Image(File file, Path path, ByteBuffer buffer) throws ImageException {
         try {
-            bufferedImage = ImageIO.read(file);
+            // 無法映射的檔案改以檔案串流讀取
+            File readFile = null == file && null == buffer ? path.toFile() : file;
+            Dimension size =
+                    null != readFile
+                            ? ImageReadUtils.readSize(readFile)
+                            : ImageReadUtils.readSize(buffer);
+            if (null == size) {
+                throw new ImageException("不支援的圖檔格式");
+            }
+            this.file = readFile;
+            this.sourceFile = null != file ? file : null != path ? path.toFile() : null;
+            this.canonicalPath =
+                    null != this.sourceFile ? this.sourceFile.getCanonicalPath() : null;
+            this.buffer = buffer;
+            this.sourceWidth = size.width;
+            this.sourceHeight = size.height;
         } catch (IOException e) {
             throw new ImageException(e);
         }
     }
 
-    public Image(@NonNull InputStream inputStream) throws ImageException {
+    /**
+     * @param file 圖檔
+     * @param width 顯示寬
+     * @param height 顯示高
+     */
+    public Image(@NonNull File file, int width, int height) throws ImageException {
+        this(file);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param inputStream 圖檔輸入流
+     * @param width 顯示寬
+     * @param height 顯示高
+     */
+    public Image(@NonNull InputStream inputStream, int width, int height) throws ImageException {
+        this(inputStream);
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * 解碼圖片
+     *
+     * <p>每次呼叫皆會重新解碼(或由{@link SourceImageCache}取得)，解碼成本與圖檔大小成正比。需重複使用時應由呼叫端保留結果，
+     * 繪製時則由{@link io.github.af19git5.cache.ScaledImageCache}快取縮放結果。同時設定寬高時會依顯示大小抽樣解碼
+     *
+     * @return 解碼後圖片
+     */
+    public BufferedImage getBufferedImage() throws ImageException {
+        BufferedImage bufferedImage;
+        try {
+            if (null != this.file) {
+                bufferedImage = SourceImageCache.read(this.file, this.width, this.height);
+            } else {
+                bufferedImage = ImageReadUtils.read(this.buffer, this.width, this.height);
+            }
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+        if (null == bufferedImage) {
+            throw new ImageException("不支援的圖檔格式");
+        }
+        return bufferedImage;
+    }
+
+    /**
+     * 取得來源識別，來源內容相同時識別相等，可作為快取鍵值
+     *
+     * <p>由記憶體內容建立時以內容的SHA-256為識別，每次請求重新建立的相同內容可共用快取
+     *
+     * @return 來源識別
+     */
+    public Object getSourceKey() {
+        if (null == this.sourceFile) {
+            ContentKey contentKey = this.contentKey;
+            if (null == contentKey) {
+                contentKey = new ContentKey(this.buffer);
+                this.contentKey = contentKey;
+            }
+            return contentKey;
+        }
+        return new FileKey(
+                this.canonicalPath, this.sourceFile.lastModified(), this.sourceFile.length());
+    }
+
+    private static ByteBuffer readAllBytes(InputStream inputStream) throws ImageException {
         try {
-            bufferedImage = ImageIO.read(inputStream);
+            return ByteBuffer.wrap(inputStream.readAllBytes());
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /** 以記憶體映射讀取檔案，超過單一緩衝區上限(2GB)時回傳null */
+    private static ByteBuffer map(Path path) throws ImageException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // 映射在通道關閉後仍然有效
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
         } catch (IOException e) {
             throw new ImageException(e);
         }
@@ -47,6 +212,28 @@ public class Image extends Item {
         return new Builder(inputStream);
     }
 
+    public static Image.Builder init(@NonNull byte[] bytes) throws ImageException {
+        return new Builder(bytes);
+    }
+
+    public static Image.Builder init(@NonNull ByteBuffer buffer) throws ImageException {
+        return new Builder(buffer);
+    }
+
+    public static Image.Builder init(@NonNull Path path) throws ImageException {
+        return new Builder(path);
+    }
+
+    public static Image.Builder init(@NonNull File file, int width, int height)
+            throws ImageException {
+        return new Builder(file, width, height);
+    }
+
+    public static Image.Builder init(@NonNull InputStream inputStream, int width, int height)
+            throws ImageException {
+        return new Builder(inputStream, width, height);
+    }
+
     public static class Builder {
 
         private final Image image;
@@ -59,6 +246,27 @@ public class Image extends Item {
             image = new Image(inputStream);
         }
 
+        public Builder(@NonNull byte[] bytes) throws ImageException {
+            image = new Image(bytes);
+        }
+
+        public Builder(@NonNull ByteBuffer buffer) throws ImageException {
+            image = new Image(buffer);
+        }
+
+        public Builder(@NonNull Path path) throws ImageException {
+            image = new Image(path);
+        }
+
+        public Builder(@NonNull File file, int width, int height) throws ImageException {
+            image = new Image(file, width, height);
+        }
+
+        public Builder(@NonNull InputStream inputStream, int width, int height)
+                throws ImageException {
+            image = new Image(inputStream, width, height);
+        }
+
         public Builder setWidth(int width) {
             this.image.setWidth(width);
             return this;
@@ -69,8 +277,89 @@ public class Image extends Item {
             return this;
         }
 
+        public Builder setScaleType(@NonNull ScaleType scaleType) {
+            this.image.setScaleType(scaleType);
+            return this;
+        }
+
+        public Builder setIsStatic(boolean isStatic) {
+            this.image.setIsStatic(isStatic);
+            return this;
+        }
+
         public Image build() {
             return image;
         }
     }
+
+    /** 記憶體內容識別 */
+    private static class ContentKey {
+
+        private final byte[] digest;
+
+        private final int hash;
+
+        private ContentKey(ByteBuffer buffer) {
+            try {
+                MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+                messageDigest.update(buffer.duplicate());
+                this.digest = messageDigest.digest();
+            } catch (NoSuchAlgorithmException e) {
+                // 所有Java平台皆需支援SHA-256
+                throw new IllegalStateException(e);
+            }
+            this.hash = Arrays.hashCode(this.digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ContentKey)) {
+                return false;
+            }
+            return Arrays.equals(this.digest, ((ContentKey) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /** 圖檔來源識別 */
+    private static class FileKey {
+
+        private final String path;
+
+        private final long lastModified;
+
+        private final long length;
+
+        private FileKey(String path, long lastModified, long length) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileKey)) {
+                return false;
+            }
+            FileKey fileKey = (FileKey) o;
+            return this.lastModified == fileKey.lastModified
+                    && this.length == fileKey.length
+                    && this.path.equals(fileKey.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.lastModified, this.length);
+        }
+    }
 }
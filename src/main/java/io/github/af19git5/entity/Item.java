@@ -17,4 +17,7 @@ public class Item {
 
     /** 高度 */
     protected Integer height = 0;
+
+    /** 是否為靜態物件(位於最前面的連續靜態物件會預先繪製為底圖，內容未變動時重複使用) */
+    protected Boolean isStatic = false;
 }
@@ -86,6 +86,11 @@ public class Rectangle extends Item {
             return this;
         }
 
+        public Builder setIsStatic(boolean isStatic) {
+            this.rectangle.setIsStatic(isStatic);
+            return this;
+        }
+
         public Rectangle build() {
             return rectangle;
         }
@@ -1,5 +1,6 @@
 package io.github.af19git5.entity;
 
+import io.github.af19git5.font.FontRegistry;
 import io.github.af19git5.type.TextPosition;
 import io.github.af19git5.utils.ColorUtils;
 
@@ -48,10 +49,37 @@ public class Text extends Item {
     /** 是否自動縮小字體 */
     private Boolean isAutoScaledFont = false;
 
+    /** 樣板欄位名稱(編譯為樣板後，可於每次繪製時替換文字內容) */
+    private String slotName;
+
     public Text(@NonNull String text) {
         this.text = text;
     }
 
+    /**
+     * 複製文字物件並替換文字內容
+     *
+     * @param text 文字內容
+     * @return 新的文字物件
+     */
+    public Text copy(@NonNull String text) {
+        Text copy = new Text(text);
+        copy.setWidth(this.width);
+        copy.setHeight(this.height);
+        copy.setColor(this.color);
+        copy.setBackgroundColor(this.backgroundColor);
+        copy.setFont(this.font);
+        copy.setPaddingTop(this.paddingTop);
+        copy.setPaddingLeft(this.paddingLeft);
+        copy.setPaddingRight(this.paddingRight);
+        copy.setPaddingBottom(this.paddingBottom);
+        copy.setPosition(this.position);
+        copy.setIsAutoScaledFont(this.isAutoScaledFont);
+        copy.setSlotName(this.slotName);
+        copy.setIsStatic(this.isStatic);
+        return copy;
+    }
+
     public static Builder init(@NonNull String text) {
         return new Builder(text);
     }
@@ -99,6 +127,18 @@ public class Text extends Item {
             return this;
         }
 
+        /**
+         * 設定字體，由{@link FontRegistry}取得已註冊或系統字體
+         *
+         * @param name 字體名稱
+         * @param style 字體樣式
+         * @param size 字體大小
+         */
+        public Builder setFont(@NonNull String name, int style, float size) {
+            this.text.setFont(FontRegistry.getFont(name, style, size));
+            return this;
+        }
+
         public Builder setPosition(@NonNull TextPosition position) {
             this.text.setPosition(position);
             return this;
@@ -137,6 +177,16 @@ public class Text extends Item {
             return this;
         }
 
+        public Builder setSlotName(@NonNull String slotName) {
+            this.text.setSlotName(slotName);
+            return this;
+        }
+
+        public Builder setIsStatic(boolean isStatic) {
+            this.text.setIsStatic(isStatic);
+            return this;
+        }
+
         public Text build() {
             return text;
         }
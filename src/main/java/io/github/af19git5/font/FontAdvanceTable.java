@@ -0,0 +1,162 @@
+package io.github.af19git5.font;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 字體字寬表
+ *
+ * <p>每個字體(字型、樣式、大小)共用一份字寬表，BMP字元以分頁的float陣列保存，其餘字元以Map保存。量測文字寬度時僅需查表相加，不需透過{@link
+ * FontMetrics}，也不會建立字串。字寬與預設繪圖設定(無文字抗鋸齒、無小數字寬)下的{@link FontMetrics#stringWidth(String)}一致
+ *
+ * @author Jimmy Kang
+ */
+public class FontAdvanceTable {
+
+    /** 與BufferedImage預設繪圖設定相同的字體繪製環境 */
+    public static final FontRenderContext FONT_RENDER_CONTEXT =
+            new FontRenderContext(null, false, false);
+
+    /** 字寬表數量上限，超過時清空重建 */
+    private static final int MAX_TABLE_COUNT = 512;
+
+    /** 每頁字元數 */
+    private static final int PAGE_SIZE = 128;
+
+    private static final Map<Font, FontAdvanceTable> TABLES = new ConcurrentHashMap<>();
+
+    private final Font font;
+
+    /** BMP字寬分頁，頁面於第一次使用時建立 */
+    private final AtomicReferenceArray<float[]> pages =
+            new AtomicReferenceArray<>(0x10000 / PAGE_SIZE);
+
+    /** BMP以外的字寬 */
+    private final Map<Integer, Float> supplementaryAdvances = new ConcurrentHashMap<>();
+
+    /** 行高 */
+    @Getter private final int height;
+
+    /** 基線以上高度 */
+    @Getter private final int ascent;
+
+    private FontAdvanceTable(Font font) {
+        this.font = font;
+        Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        try {
+            FontMetrics fontMetrics = graphics.getFontMetrics(font);
+            this.height = fontMetrics.getHeight();
+            this.ascent = fontMetrics.getAscent();
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    /**
+     * 取得字體的字寬表
+     *
+     * @param font 字體
+     * @return 字寬表
+     */
+    public static FontAdvanceTable of(@NonNull Font font) {
+        FontAdvanceTable table = TABLES.get(font);
+        if (null != table) {
+            return table;
+        }
+        if (TABLES.size() >= MAX_TABLE_COUNT) {
+            TABLES.clear();
+        }
+        return TABLES.computeIfAbsent(font, FontAdvanceTable::new);
+    }
+
+    /**
+     * 移除指定字體名稱的字寬表(同名字體重新註冊時使用)
+     *
+     * @param fontName 字體名稱({@link Font#getName()})
+     */
+    static void remove(String fontName) {
+        TABLES.keySet().removeIf(font -> font.getName().equals(fontName));
+    }
+
+    /**
+     * 取得字元寬度
+     *
+     * @param codePoint 字元
+     * @return 字元寬度
+     */
+    public float getAdvance(int codePoint) {
+        if (codePoint < 0x10000) {
+            int pageIndex = codePoint / PAGE_SIZE;
+            float[] page = this.pages.get(pageIndex);
+            if (null == page) {
+                page = buildPage(pageIndex);
+                this.pages.set(pageIndex, page);
+            }
+            return page[codePoint % PAGE_SIZE];
+        }
+        Float advance = this.supplementaryAdvances.get(codePoint);
+        if (null == advance) {
+            advance = measure(Character.toChars(codePoint));
+            this.supplementaryAdvances.put(codePoint, advance);
+        }
+        return advance;
+    }
+
+    /**
+     * 量測文字寬度
+     *
+     * @param text 文字
+     * @return 文字寬度
+     */
+    public int stringWidth(@NonNull CharSequence text) {
+        return stringWidth(text, 0, text.length());
+    }
+
+    /**
+     * 量測部分文字寬度
+     *
+     * @param text 文字
+     * @param start 起始位置(包含)
+     * @param end 結束位置(不包含)
+     * @return 文字寬度
+     */
+    public int stringWidth(@NonNull CharSequence text, int start, int end) {
+        float width = 0;
+        int i = start;
+        while (i < end) {
+            int codePoint = Character.codePointAt(text, i);
+            width += getAdvance(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return (int) (0.5f + width);
+    }
+
+    /** 建立一頁BMP字元的字寬 */
+    private float[] buildPage(int pageIndex) {
+        char[] chars = new char[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            char c = (char) (pageIndex * PAGE_SIZE + i);
+            // 代理字元無法單獨量測，以空白代替
+            chars[i] = Character.isSurrogate(c) ? ' ' : c;
+        }
+        GlyphVector glyphVector = this.font.createGlyphVector(FONT_RENDER_CONTEXT, chars);
+        float[] page = new float[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page[i] = glyphVector.getGlyphMetrics(i).getAdvance();
+        }
+        return page;
+    }
+
+    private float measure(char[] chars) {
+        GlyphVector glyphVector = this.font.createGlyphVector(FONT_RENDER_CONTEXT, chars);
+        return (float) glyphVector.getGlyphPosition(glyphVector.getNumGlyphs()).getX();
+    }
+}
@@ -0,0 +1,314 @@
+package io.github.af19git5.font;
+
+import io.github.af19git5.cache.TextLayoutCache;
+import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.utils.TextUtils;
+
+import lombok.NonNull;
+
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 字體註冊表
+ *
+ * <p>自訂字體(TTF/OTF)於註冊時解析一次，之後以名稱、樣式及大小取得字體。衍生出的字體會被保留，相同參數取得的皆為同一個物件，繪製時不需再解析或衍生字體
+ *
+ * @author Jimmy Kang
+ */
+public class FontRegistry {
+
+    /** 衍生字體數量上限，超過時清空重建 */
+    private static final int MAX_DERIVED_COUNT = 4096;
+
+    /** 已註冊字體，依名稱及樣式保存 */
+    private static final Map<FaceKey, Font> FACES = new ConcurrentHashMap<>();
+
+    /** 已衍生字體 */
+    private static final Map<DerivedKey, Font> DERIVED = new ConcurrentHashMap<>();
+
+    /**
+     * 由字體檔註冊一般樣式字體
+     *
+     * @param name 字體名稱
+     * @param file 字體檔
+     */
+    public static void register(@NonNull String name, @NonNull File file) throws ImageException {
+        register(name, Font.PLAIN, file);
+    }
+
+    /**
+     * 由字體檔註冊指定樣式字體(例如粗體使用獨立字體檔時)
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式({@link Font#PLAIN}、{@link Font#BOLD}、{@link Font#ITALIC}之組合)
+     * @param file 字體檔
+     */
+    public static void register(@NonNull String name, int style, @NonNull File file)
+            throws ImageException {
+        try {
+            register(name, style, Font.createFont(Font.TRUETYPE_FONT, file));
+        } catch (FontFormatException | IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 由字體內容註冊一般樣式字體
+     *
+     * @param name 字體名稱
+     * @param bytes 字體檔內容
+     */
+    public static void register(@NonNull String name, @NonNull byte[] bytes)
+            throws ImageException {
+        register(name, Font.PLAIN, bytes);
+    }
+
+    /**
+     * 由字體內容註冊指定樣式字體
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式
+     * @param bytes 字體檔內容
+     */
+    public static void register(@NonNull String name, int style, @NonNull byte[] bytes)
+            throws ImageException {
+        register(name, style, new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * 由輸入流註冊指定樣式字體，輸入流不會被關閉
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式
+     * @param inputStream 字體檔輸入流
+     */
+    public static void register(@NonNull String name, int style, @NonNull InputStream inputStream)
+            throws ImageException {
+        try {
+            register(name, style, Font.createFont(Font.TRUETYPE_FONT, inputStream));
+        } catch (FontFormatException | IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 由classpath資源註冊一般樣式字體
+     *
+     * @param name 字體名稱
+     * @param resource 資源路徑(例如fonts/brand.ttf)
+     */
+    public static void registerResource(@NonNull String name, @NonNull String resource)
+            throws ImageException {
+        registerResource(name, Font.PLAIN, resource);
+    }
+
+    /**
+     * 由classpath資源註冊指定樣式字體
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式
+     * @param resource 資源路徑(例如fonts/brand-bold.ttf)
+     */
+    public static void registerResource(@NonNull String name, int style, @NonNull String resource)
+            throws ImageException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (null == classLoader) {
+            classLoader = FontRegistry.class.getClassLoader();
+        }
+        try (InputStream inputStream = classLoader.getResourceAsStream(resource)) {
+            if (null == inputStream) {
+                throw new ImageException("找不到字體資源: " + resource);
+            }
+            register(name, style, inputStream);
+        } catch (IOException e) {
+            throw new ImageException(e);
+        }
+    }
+
+    /**
+     * 註冊已建立的字體
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式
+     * @param font 字體
+     */
+    public static void register(@NonNull String name, int style, @NonNull Font font) {
+        Font previous = FACES.put(new FaceKey(name, style), font);
+        // 同名字體重新註冊時，移除舊的衍生字體，包含由名稱取得及由字體物件衍生者
+        DERIVED.keySet()
+                .removeIf(
+                        key ->
+                                null == key.font
+                                        ? key.name.equals(name)
+                                        : isSameFace(key.font, font)
+                                                || (null != previous
+                                                        && isSameFace(key.font, previous)));
+        // 字寬表、文字排版及自動縮小字體結果以Font為鍵值，同名字體比對相等，需一併移除
+        removeFontCaches(font.getName());
+        if (null != previous) {
+            removeFontCaches(previous.getName());
+        }
+    }
+
+    /**
+     * 是否已註冊字體
+     *
+     * @param name 字體名稱
+     * @return 是否已註冊
+     */
+    public static boolean isRegistered(@NonNull String name) {
+        return FACES.keySet().stream().anyMatch(key -> key.name.equals(name));
+    }
+
+    /**
+     * 取得字體
+     *
+     * <p>優先使用名稱及樣式皆相同的註冊字體，其次以同名的一般樣式字體衍生樣式，未註冊的名稱則使用系統字體。相同參數回傳同一個物件
+     *
+     * @param name 字體名稱
+     * @param style 字體樣式
+     * @param size 字體大小
+     * @return 字體
+     */
+    public static Font getFont(@NonNull String name, int style, float size) {
+        DerivedKey key = new DerivedKey(null, name, style, size);
+        Font font = DERIVED.get(key);
+        if (null != font) {
+            return font;
+        }
+        return intern(key, () -> createFont(name, style, size));
+    }
+
+    /**
+     * 取得指定大小的衍生字體，相同參數回傳同一個物件
+     *
+     * @param font 原字體
+     * @param size 字體大小
+     * @return 衍生字體
+     */
+    public static Font derive(@NonNull Font font, float size) {
+        if (font.getSize2D() == size) {
+            return font;
+        }
+        DerivedKey key = new DerivedKey(font, null, font.getStyle(), size);
+        Font derived = DERIVED.get(key);
+        if (null != derived) {
+            return derived;
+        }
+        return intern(key, () -> font.deriveFont(size));
+    }
+
+    /** 清除所有註冊及衍生字體 */
+    public static void clear() {
+        FACES.clear();
+        DERIVED.clear();
+    }
+
+    private static Font intern(DerivedKey key, Supplier<Font> supplier) {
+        if (DERIVED.size() >= MAX_DERIVED_COUNT) {
+            DERIVED.clear();
+        }
+        return DERIVED.computeIfAbsent(key, k -> supplier.get());
+    }
+
+    /** 是否衍生自同一字體(Font#equals以字體名稱比對，不同字體檔的同名字體亦視為相等) */
+    private static boolean isSameFace(Font font, Font face) {
+        return font.getName().equals(face.getName());
+    }
+
+    /** 移除以字體為鍵值的快取 */
+    private static void removeFontCaches(String fontName) {
+        FontAdvanceTable.remove(fontName);
+        TextLayoutCache.remove(fontName);
+        TextUtils.removeAutoScaleFontSize(fontName);
+    }
+
+    private static Font createFont(String name, int style, float size) {
+        Font face = FACES.get(new FaceKey(name, style));
+        if (null != face) {
+            return face.deriveFont(size);
+        }
+        face = FACES.get(new FaceKey(name, Font.PLAIN));
+        if (null != face) {
+            return face.deriveFont(style, size);
+        }
+        return new Font(name, style, 1).deriveFont(size);
+    }
+
+    /** 註冊字體識別 */
+    private static class FaceKey {
+
+        private final String name;
+
+        private final int style;
+
+        private FaceKey(String name, int style) {
+            this.name = name;
+            this.style = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FaceKey)) {
+                return false;
+            }
+            FaceKey key = (FaceKey) o;
+            return this.style == key.style && this.name.equals(key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.name, this.style);
+        }
+    }
+
+    /** 衍生字體識別，由字體衍生時name為null，由名稱取得時font為null */
+    private static class DerivedKey {
+
+        private final Font font;
+
+        private final String name;
+
+        private final int style;
+
+        private final float size;
+
+        private DerivedKey(Font font, String name, int style, float size) {
+            this.font = font;
+            this.name = name;
+            this.style = style;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DerivedKey)) {
+                return false;
+            }
+            DerivedKey key = (DerivedKey) o;
+            return this.style == key.style
+                    && Float.compare(this.size, key.size) == 0
+                    && Objects.equals(this.font, key.font)
+                    && Objects.equals(this.name, key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.font, this.name, this.style, this.size);
+        }
+    }
+}
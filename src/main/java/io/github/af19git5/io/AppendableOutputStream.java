@@ -0,0 +1,99 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 將ASCII內容(例如Base64)寫入{@link Appendable}的輸出流
+ *
+ * <p>每個byte視為一個字元，以固定大小的字元緩衝區分批寫入。關閉時不會關閉目標
+ *
+ * @author Jimmy Kang
+ */
+public class AppendableOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Appendable appendable;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private final CharArraySequence sequence = new CharArraySequence(this.buffer);
+
+    private int count;
+
+    /**
+     * @param appendable 寫入目標(例如StringBuilder或Writer)
+     */
+    public AppendableOutputStream(@NonNull Appendable appendable) {
+        this.appendable = appendable;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (this.count == this.buffer.length) {
+            flushBuffer();
+        }
+        this.buffer[this.count++] = (char) (b & 0xFF);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        for (int i = 0; i < len; i++) {
+            if (this.count == this.buffer.length) {
+                flushBuffer();
+            }
+            this.buffer[this.count++] = (char) (b[off + i] & 0xFF);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (this.count > 0) {
+            // 透過CharSequence寫入，避免為每批內容建立字串
+            this.appendable.append(this.sequence, 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    /** 包裝字元陣列的CharSequence */
+    private static class CharArraySequence implements CharSequence {
+
+        private final char[] chars;
+
+        private CharArraySequence(char[] chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int length() {
+            return this.chars.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return this.chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(this.chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.chars);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Base64;
+
+/**
+ * 邊寫入邊進行Base64編碼的輸出流
+ *
+ * <p>關閉時寫入結尾的補位字元，但不會關閉目標輸出流
+ *
+ * @author Jimmy Kang
+ */
+public class Base64OutputStream extends FilterOutputStream {
+
+    /**
+     * @param outputStream 編碼結果輸出流
+     */
+    public Base64OutputStream(@NonNull OutputStream outputStream) {
+        super(Base64.getEncoder().wrap(new UnclosedOutputStream(outputStream)));
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.out.write(b, off, len);
+    }
+
+    /** 關閉時僅flush的輸出流 */
+    private static class UnclosedOutputStream extends FilterOutputStream {
+
+        private UnclosedOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.out.flush();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.af19git5.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 緩衝區配置器，可實作為緩衝區池以重複使用direct緩衝區
+ *
+ * @author Jimmy Kang
+ */
+public interface ByteBufferAllocator {
+
+    /** 每次配置新的heap緩衝區，釋放時不做任何處理(預設) */
+    ByteBufferAllocator HEAP = ByteBuffer::allocate;
+
+    /**
+     * 每次配置新的direct緩衝區，釋放時不做任何處理
+     *
+     * <p>direct記憶體僅在緩衝區物件被回收後才會釋放，大量輸出時可能超過-XX:MaxDirectMemorySize，建議改用可重複使用緩衝區的緩衝區池
+     */
+    ByteBufferAllocator DIRECT = ByteBuffer::allocateDirect;
+
+    /**
+     * 配置緩衝區
+     *
+     * @param capacity 最小容量
+     * @return 容量不小於指定大小的緩衝區(position為0，limit為capacity)
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * 釋放不再使用的緩衝區(例如擴充容量後的舊緩衝區)
+     *
+     * @param buffer 緩衝區
+     */
+    default void release(ByteBuffer buffer) {}
+}
@@ -0,0 +1,68 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * 直接讀取{@link ByteBuffer}內容的圖檔輸入流
+ *
+ * <p>不會另外複製或暫存內容，可搭配記憶體映射檔案使用。讀取範圍為建立時緩衝區的position至limit，不會變更原緩衝區的位置
+ *
+ * @author Jimmy Kang
+ */
+public class ByteBufferImageInputStream extends ImageInputStreamImpl {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * @param buffer 圖檔內容
+     */
+    public ByteBufferImageInputStream(@NonNull ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        this.bitOffset = 0;
+        if (this.streamPos >= this.buffer.limit()) {
+            return -1;
+        }
+        return this.buffer.get((int) this.streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.bitOffset = 0;
+        if (len == 0) {
+            return 0;
+        }
+        long remaining = this.buffer.limit() - this.streamPos;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int count = (int) Math.min(len, remaining);
+        this.buffer.position((int) this.streamPos);
+        this.buffer.get(b, off, count);
+        this.streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return this.buffer.limit();
+    }
+
+    @Override
+    public boolean isCachedMemory() {
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 直接寫入{@link ByteBuffer}的輸出流
+ *
+ * <p>容量不足時向配置器取得兩倍大小的緩衝區並搬移已寫入內容，舊緩衝區交還配置器
+ *
+ * @author Jimmy Kang
+ */
+public class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBufferAllocator allocator;
+
+    private ByteBuffer buffer;
+
+    /**
+     * @param allocator 緩衝區配置器
+     * @param initialCapacity 初始容量
+     */
+    public ByteBufferOutputStream(@NonNull ByteBufferAllocator allocator, int initialCapacity) {
+        this.allocator = allocator;
+        this.buffer = allocator.allocate(Math.max(1, initialCapacity));
+    }
+
+    @Override
+    public void write(int b) {
+        ensureRemaining(1);
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureRemaining(len);
+        this.buffer.put(b, off, len);
+    }
+
+    /**
+     * 取得已寫入的內容，回傳的緩衝區position為0，limit為寫入長度，之後不可再寫入此輸出流
+     *
+     * <p>未使用的容量超過一半時改為配置符合寫入長度的緩衝區並交還原緩衝區，避免呼叫端持有過大的緩衝區
+     *
+     * @return 已寫入的內容
+     */
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer result = this.buffer;
+        result.flip();
+        if (result.limit() < result.capacity() / 2) {
+            ByteBuffer trimmed = this.allocator.allocate(Math.max(1, result.limit()));
+            trimmed.put(result);
+            trimmed.flip();
+            this.allocator.release(result);
+            result = trimmed;
+        }
+        this.buffer = null;
+        return result;
+    }
+
+    /** 放棄已寫入的內容並將緩衝區交還配置器(例如寫入失敗時)，之後不可再寫入此輸出流 */
+    public void release() {
+        if (null != this.buffer) {
+            this.allocator.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    private void ensureRemaining(int length) {
+        if (this.buffer.remaining() >= length) {
+            return;
+        }
+        long required = (long) this.buffer.position() + length;
+        long capacity = Math.max(required, (long) this.buffer.capacity() * 2);
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("輸出內容超過緩衝區上限");
+        }
+        ByteBuffer expanded =
+                this.allocator.allocate((int) Math.min(capacity, Integer.MAX_VALUE - 8));
+        this.buffer.flip();
+        expanded.put(this.buffer);
+        this.allocator.release(this.buffer);
+        this.buffer = expanded;
+    }
+}
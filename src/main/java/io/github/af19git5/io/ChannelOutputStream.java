@@ -0,0 +1,71 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 寫入{@link WritableByteChannel}的輸出流
+ *
+ * <p>以固定大小的heap緩衝區暫存後寫入通道，減少通道寫入次數。NIO寫入heap緩衝區時會使用各執行緒重複使用的暫存direct緩衝區，
+ * 不會隨每次輸出配置direct記憶體。通道需為阻塞模式，關閉時不會關閉通道
+ *
+ * @author Jimmy Kang
+ */
+public class ChannelOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * @param channel 輸出通道
+     */
+    public ChannelOutputStream(@NonNull WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!this.buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int n = Math.min(len, this.buffer.remaining());
+            this.buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
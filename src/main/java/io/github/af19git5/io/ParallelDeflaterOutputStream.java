@@ -0,0 +1,203 @@
+package io.github.af19git5.io;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * 多執行緒壓縮的zlib輸出流
+ *
+ * <p>寫入的資料切分為固定大小的區塊，各區塊以前一區塊結尾的32KB作為字典，交由執行緒池分別壓縮後依序輸出。除最後一個區塊外皆以SYNC_FLUSH結尾，
+ * 因此串接後仍為單一標準zlib串流。同時壓縮中的區塊數有上限，記憶體用量不會隨資料大小增加。{@link #finish()}時寫入結尾，但不會關閉目標輸出流
+ *
+ * @author Jimmy Kang
+ */
+public class ParallelDeflaterOutputStream extends FilterOutputStream {
+
+    /** 區塊大小 */
+    private static final int BLOCK_SIZE = 128 * 1024;
+
+    /** 字典大小(deflate最大回溯距離) */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private final int level;
+
+    private final Executor executor;
+
+    /** 同時壓縮中的區塊數上限 */
+    private final int maxPending;
+
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+
+    private final Adler32 adler32 = new Adler32();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+
+    private int count;
+
+    /** 前一區塊結尾的資料 */
+    private byte[] dictionary;
+
+    private boolean finished;
+
+    /**
+     * @param outputStream 壓縮結果輸出流(不會被關閉)
+     * @param level 壓縮等級(0~9，-1為預設)
+     * @param parallelism 同時壓縮的區塊數
+     * @param executor 執行壓縮的執行緒池
+     */
+    public ParallelDeflaterOutputStream(
+            @NonNull OutputStream outputStream,
+            int level,
+            int parallelism,
+            @NonNull Executor executor)
+            throws IOException {
+        super(outputStream);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("同時壓縮區塊數需大於0");
+        }
+        this.level = level;
+        this.executor = executor;
+        this.maxPending = parallelism * 2;
+        writeHeader(outputStream, level);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.finished) {
+            throw new IOException("輸出流已結束");
+        }
+        this.adler32.update(b, off, len);
+        while (len > 0) {
+            if (this.count == BLOCK_SIZE) {
+                submit(false);
+            }
+            int n = Math.min(len, BLOCK_SIZE - this.count);
+            System.arraycopy(b, off, this.block, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /** 壓縮剩餘資料並寫入結尾，不會關閉目標輸出流 */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        submit(true);
+        while (!this.pending.isEmpty()) {
+            writePending();
+        }
+        long checksum = this.adler32.getValue();
+        this.out.write(
+                new byte[] {
+                    (byte) (checksum >>> 24),
+                    (byte) (checksum >>> 16),
+                    (byte) (checksum >>> 8),
+                    (byte) checksum
+                });
+        this.finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        this.out.flush();
+    }
+
+    /** 將目前區塊交由執行緒池壓縮 */
+    private void submit(boolean last) throws IOException {
+        while (this.pending.size() >= this.maxPending) {
+            writePending();
+        }
+        byte[] input = this.block;
+        int length = this.count;
+        byte[] dictionary = this.dictionary;
+        int level = this.level;
+        this.pending.add(
+                CompletableFuture.supplyAsync(
+                        () -> compress(input, length, dictionary, level, last), this.executor));
+        if (!last) {
+            this.dictionary = Arrays.copyOfRange(input, length - DICTIONARY_SIZE, length);
+            this.block = new byte[BLOCK_SIZE];
+            this.count = 0;
+        }
+    }
+
+    /** 寫出最早送出的區塊 */
+    private void writePending() throws IOException {
+        byte[] compressed;
+        try {
+            compressed = this.pending.removeFirst().join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause());
+        }
+        this.out.write(compressed);
+    }
+
+    private static byte[] compress(
+            byte[] input, int length, byte[] dictionary, int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (null != dictionary) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, length);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    outputStream.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // 以SYNC_FLUSH結尾，輸出對齊至byte邊界，可直接與下一區塊串接
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    outputStream.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** 寫入zlib檔頭 */
+    private static void writeHeader(OutputStream outputStream, int level) throws IOException {
+        // CMF為deflate、32KB視窗，FLG的壓縮等級僅供參考，並補上使檔頭可被31整除的檢查位元
+        int cmf = 0x78;
+        int flevel;
+        if (level == 0 || level == 1) {
+            flevel = 0;
+        } else if (level >= 2 && level <= 5) {
+            flevel = 1;
+        } else if (level == 6 || level == Deflater.DEFAULT_COMPRESSION) {
+            flevel = 2;
+        } else {
+            flevel = 3;
+        }
+        int flg = flevel << 6;
+        flg += (31 - ((cmf << 8) + flg) % 31) % 31;
+        outputStream.write(cmf);
+        outputStream.write(flg);
+    }
+}
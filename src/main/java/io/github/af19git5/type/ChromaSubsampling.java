@@ -0,0 +1,33 @@
+package io.github.af19git5.type;
+
+import lombok.Getter;
+
+/**
+ * JPEG色度抽樣
+ *
+ * @author Jimmy Kang
+ */
+@Getter
+public enum ChromaSubsampling {
+
+    /** 不抽樣，色彩最精確但檔案最大 */
+    YUV_444(1, 1),
+
+    /** 水平抽樣 */
+    YUV_422(2, 1),
+
+    /** 水平及垂直抽樣，檔案最小(JPEG預設) */
+    YUV_420(2, 2),
+    ;
+
+    /** 亮度水平抽樣係數 */
+    private final int horizontalFactor;
+
+    /** 亮度垂直抽樣係數 */
+    private final int verticalFactor;
+
+    ChromaSubsampling(int horizontalFactor, int verticalFactor) {
+        this.horizontalFactor = horizontalFactor;
+        this.verticalFactor = verticalFactor;
+    }
+}
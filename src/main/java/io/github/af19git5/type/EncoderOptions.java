@@ -0,0 +1,157 @@
+package io.github.af19git5.type;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 圖檔編碼參數
+ *
+ * <p>未設定的參數使用編碼器預設值，不適用於輸出格式的參數會被忽略。建立後不可變動，可於多執行緒共用
+ *
+ * @author Jimmy Kang
+ */
+@Getter
+public class EncoderOptions {
+
+    /** 預設編碼參數 */
+    public static final EncoderOptions DEFAULT = new EncoderOptions();
+
+    /** JPEG品質(0~1，null為預設) */
+    private Float jpegQuality;
+
+    /** 是否使用JPEG漸進式編碼 */
+    private boolean jpegProgressive;
+
+    /** JPEG色度抽樣(null為預設) */
+    private ChromaSubsampling chromaSubsampling;
+
+    /** PNG壓縮等級(0~9，null為預設) */
+    private Integer pngCompressionLevel;
+
+    /** PNG列過濾方式(null為預設) */
+    private PngFilter pngFilter;
+
+    /** PNG同時壓縮的區塊數(1為單執行緒壓縮) */
+    private int pngDeflateThreads = 1;
+
+    /** PNG多執行緒壓縮使用的執行緒池(null為ForkJoinPool.commonPool()) */
+    private Executor deflateExecutor;
+
+    /** PNG8調色盤顏色數上限(2~256) */
+    private int paletteSize = 256;
+
+    /** PNG8是否使用抖色 */
+    private boolean dither;
+
+    private EncoderOptions() {}
+
+    /**
+     * 是否有設定PNG參數
+     *
+     * @return 是否有設定PNG參數
+     */
+    public boolean hasPngOptions() {
+        return null != this.pngCompressionLevel
+                || null != this.pngFilter
+                || this.pngDeflateThreads > 1;
+    }
+
+    /**
+     * 是否有設定JPEG參數
+     *
+     * @return 是否有設定JPEG參數
+     */
+    public boolean hasJpegOptions() {
+        return null != this.jpegQuality || this.jpegProgressive || null != this.chromaSubsampling;
+    }
+
+    public static Builder init() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final EncoderOptions options = new EncoderOptions();
+
+        /**
+         * @param jpegQuality JPEG品質(0~1，越低檔案越小)
+         */
+        public Builder setJpegQuality(float jpegQuality) {
+            if (jpegQuality < 0 || jpegQuality > 1) {
+                throw new IllegalArgumentException("JPEG品質需介於0~1");
+            }
+            this.options.jpegQuality = jpegQuality;
+            return this;
+        }
+
+        public Builder setJpegProgressive(boolean jpegProgressive) {
+            this.options.jpegProgressive = jpegProgressive;
+            return this;
+        }
+
+        public Builder setChromaSubsampling(@NonNull ChromaSubsampling chromaSubsampling) {
+            this.options.chromaSubsampling = chromaSubsampling;
+            return this;
+        }
+
+        /**
+         * @param pngCompressionLevel PNG壓縮等級(0~9，0為不壓縮，越高檔案越小但越慢)
+         */
+        public Builder setPngCompressionLevel(int pngCompressionLevel) {
+            if (pngCompressionLevel < 0 || pngCompressionLevel > 9) {
+                throw new IllegalArgumentException("PNG壓縮等級需介於0~9");
+            }
+            this.options.pngCompressionLevel = pngCompressionLevel;
+            return this;
+        }
+
+        public Builder setPngFilter(@NonNull PngFilter pngFilter) {
+            this.options.pngFilter = pngFilter;
+            return this;
+        }
+
+        /**
+         * @param pngDeflateThreads PNG同時壓縮的區塊數，大於1時壓縮資料切分為區塊交由執行緒池平行壓縮(檔案略大，但大圖編碼時間隨核心數縮短)
+         */
+        public Builder setPngDeflateThreads(int pngDeflateThreads) {
+            if (pngDeflateThreads <= 0) {
+                throw new IllegalArgumentException("PNG壓縮執行緒數需大於0");
+            }
+            this.options.pngDeflateThreads = pngDeflateThreads;
+            return this;
+        }
+
+        /**
+         * @param deflateExecutor PNG多執行緒壓縮使用的執行緒池(未設定時使用ForkJoinPool.commonPool())
+         */
+        public Builder setDeflateExecutor(@NonNull Executor deflateExecutor) {
+            this.options.deflateExecutor = deflateExecutor;
+            return this;
+        }
+
+        /**
+         * @param paletteSize PNG8調色盤顏色數上限(2~256)
+         */
+        public Builder setPaletteSize(int paletteSize) {
+            if (paletteSize < 2 || paletteSize > 256) {
+                throw new IllegalArgumentException("調色盤顏色數需介於2~256");
+            }
+            this.options.paletteSize = paletteSize;
+            return this;
+        }
+
+        /**
+         * @param dither PNG8是否使用抖色(漸層較平順，但檔案較大)
+         */
+        public Builder setDither(boolean dither) {
+            this.options.dither = dither;
+            return this;
+        }
+
+        public EncoderOptions build() {
+            return this.options;
+        }
+    }
+}
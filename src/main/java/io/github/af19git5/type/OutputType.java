@@ -9,14 +9,25 @@ import lombok.Getter;
  */
 @Getter
 public enum OutputType {
-    JPG("jpg"),
+    JPG("jpg", "image/jpeg", false),
 
-    PNG("png"),
+    PNG("png", "image/png", true),
+
+    /** 最多256色的索引色PNG，透明度保留於調色盤中 */
+    PNG8("png", "image/png", true),
     ;
 
     private final String type;
 
-    OutputType(String type) {
+    /** MIME類型 */
+    private final String mimeType;
+
+    /** 是否支援透明度 */
+    private final boolean alpha;
+
+    OutputType(String type, String mimeType, boolean alpha) {
         this.type = type;
+        this.mimeType = mimeType;
+        this.alpha = alpha;
     }
 }
@@ -0,0 +1,65 @@
+package io.github.af19git5.type;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 畫布像素格式
+ *
+ * @author Jimmy Kang
+ */
+@Getter
+public enum PixelFormat {
+
+    /** 依輸出格式自動選擇，不支援透明度的格式使用INT_RGB，其餘使用INT_ARGB_PRE */
+    AUTO(0, true),
+
+    /** 不透明RGB */
+    INT_RGB(BufferedImage.TYPE_INT_RGB, false),
+
+    /** 不透明BGR，每像素3 byte，記憶體用量較少 */
+    THREE_BYTE_BGR(BufferedImage.TYPE_3BYTE_BGR, false),
+
+    /** 未預乘透明度的ARGB */
+    INT_ARGB(BufferedImage.TYPE_INT_ARGB, true),
+
+    /** 預乘透明度的ARGB，合成速度最快 */
+    INT_ARGB_PRE(BufferedImage.TYPE_INT_ARGB_PRE, true),
+    ;
+
+    /** BufferedImage類型 */
+    private final int imageType;
+
+    /** 是否保留透明度 */
+    private final boolean alpha;
+
+    PixelFormat(int imageType, boolean alpha) {
+        this.imageType = imageType;
+        this.alpha = alpha;
+    }
+
+    /**
+     * 取得實際使用的像素格式
+     *
+     * @param outputType 輸出格式
+     * @return 像素格式(不為AUTO)
+     */
+    public PixelFormat resolve(@NonNull OutputType outputType) {
+        return resolve(outputType.isAlpha());
+    }
+
+    /**
+     * 取得實際使用的像素格式
+     *
+     * @param alpha 是否需要透明度(像素格式為AUTO時依此選擇)
+     * @return 像素格式(不為AUTO)
+     */
+    public PixelFormat resolve(boolean alpha) {
+        if (this != AUTO) {
+            return this;
+        }
+        return alpha ? INT_ARGB_PRE : INT_RGB;
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.af19git5.type;
+
+import lombok.Getter;
+
+/**
+ * PNG列過濾方式
+ *
+ * @author Jimmy Kang
+ */
+@Getter
+public enum PngFilter {
+
+    /** 不過濾，速度最快，適合搭配低壓縮等級 */
+    NONE(0),
+
+    /** 與左方像素相減 */
+    SUB(1),
+
+    /** 與上方像素相減 */
+    UP(2),
+
+    /** 與左方及上方像素平均值相減 */
+    AVERAGE(3),
+
+    /** 與Paeth預測值相減 */
+    PAETH(4),
+
+    /** 每列分別選擇結果最小的過濾方式，壓縮率最佳但速度最慢 */
+    ADAPTIVE(-1),
+    ;
+
+    /** PNG規格中的過濾方式代碼(自動選擇時為-1) */
+    private final int code;
+
+    PngFilter(int code) {
+        this.code = code;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.af19git5.type;
+
+/**
+ * 圖片縮放演算法
+ *
+ * @author Jimmy Kang
+ */
+public enum ScaleType {
+
+    /** 最近鄰插值，速度最快但品質最差 */
+    NEAREST,
+
+    /** 雙線性插值，適合放大或小幅縮小 */
+    BILINEAR,
+
+    /** 逐次減半後再以雙線性插值縮放至目標大小，適合大幅縮小且重視速度 */
+    PROGRESSIVE,
+
+    /** 區域平均，大幅縮小時品質最佳(放大時改用雙線性插值) */
+    AREA_AVERAGE
+}
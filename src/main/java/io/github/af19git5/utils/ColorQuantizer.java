@@ -0,0 +1,397 @@
+package io.github.af19git5.utils;
+
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 色彩量化共用
+ *
+ * <p>將圖片轉為最多256色的索引色圖片，透明度保留於調色盤中。顏色數量未超過上限時直接使用原始顏色；超過時以抽樣像素建立八元樹(含透明度共四個通道)
+ * 並合併像素數量最少的節點，建立調色盤的成本與圖片大小無關
+ *
+ * @author Jimmy Kang
+ */
+public class ColorQuantizer {
+
+    /** 八元樹深度(每通道使用的位元數) */
+    private static final int MAX_DEPTH = 5;
+
+    /** 建立調色盤時最多使用的像素數 */
+    private static final int MAX_SAMPLES = 1 << 16;
+
+    /** 最近顏色查詢快取大小 */
+    private static final int CACHE_SIZE = 1 << 14;
+
+    /**
+     * 量化圖片
+     *
+     * @param image 圖片
+     * @param maxColors 最多顏色數(2~256)
+     * @param dither 是否使用Floyd-Steinberg抖色
+     * @return 索引色圖片
+     */
+    public static BufferedImage quantize(
+            @NonNull BufferedImage image, int maxColors, boolean dither) {
+        if (maxColors < 2 || maxColors > 256) {
+            throw new IllegalArgumentException("顏色數需介於2~256");
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++) {
+            // 完全透明的像素視為同一顏色
+            if (pixels[i] >>> 24 == 0) {
+                pixels[i] = 0;
+            }
+        }
+
+        byte[] indices = new byte[pixels.length];
+        int[] palette = buildExactPalette(pixels, maxColors, indices);
+        if (null == palette) {
+            palette = buildOctreePalette(pixels, maxColors);
+            if (dither) {
+                ditherPixels(pixels, width, height, palette, indices);
+            } else {
+                mapPixels(pixels, palette, indices);
+            }
+        }
+
+        BufferedImage target =
+                new BufferedImage(
+                        width, height, BufferedImage.TYPE_BYTE_INDEXED, toColorModel(palette));
+        byte[] data = ((DataBufferByte) target.getRaster().getDataBuffer()).getData();
+        System.arraycopy(indices, 0, data, 0, indices.length);
+        return target;
+    }
+
+    /** 顏色數量未超過上限時直接以原始顏色建立調色盤，超過時回傳null */
+    private static int[] buildExactPalette(int[] pixels, int maxColors, byte[] indices) {
+        ColorIndexMap map = new ColorIndexMap(1024);
+        int[] palette = new int[maxColors];
+        int size = 0;
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            int index = map.get(pixel);
+            if (index < 0) {
+                if (size == maxColors) {
+                    return null;
+                }
+                index = size++;
+                palette[index] = pixel;
+                map.put(pixel, index);
+            }
+            indices[i] = (byte) index;
+        }
+        return Arrays.copyOf(palette, size);
+    }
+
+    /** 以抽樣像素建立八元樹並縮減至顏色數上限 */
+    private static int[] buildOctreePalette(int[] pixels, int maxColors) {
+        Octree octree = new Octree();
+        int step = Math.max(1, pixels.length / MAX_SAMPLES);
+        for (int i = 0; i < pixels.length; i += step) {
+            // 於每個區段內取不同位置，避免與圖片中的規律圖樣對齊
+            int index = i + (int) ((i * 2654435761L) % step);
+            octree.add(pixels[Math.min(index, pixels.length - 1)]);
+        }
+        octree.reduce(maxColors);
+        return octree.getPalette();
+    }
+
+    private static void mapPixels(int[] pixels, int[] palette, byte[] indices) {
+        ColorIndexMap cache = new ColorIndexMap(CACHE_SIZE);
+        for (int i = 0; i < pixels.length; i++) {
+            indices[i] = (byte) findNearest(pixels[i], palette, cache);
+        }
+    }
+
+    /** Floyd-Steinberg抖色，誤差僅擴散RGB通道，透明度不抖色 */
+    private static void ditherPixels(
+            int[] pixels, int width, int height, int[] palette, byte[] indices) {
+        ColorIndexMap cache = new ColorIndexMap(CACHE_SIZE);
+        // 每列誤差(前後各多留一個像素)，依序為R、G、B
+        int[] currentError = new int[(width + 2) * 3];
+        int[] nextError = new int[(width + 2) * 3];
+        for (int y = 0; y < height; y++) {
+            Arrays.fill(nextError, 0);
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                int pixel = pixels[i];
+                int a = pixel >>> 24;
+                int e = (x + 1) * 3;
+                int r = clamp(((pixel >> 16) & 0xFF) + (currentError[e] >> 4));
+                int g = clamp(((pixel >> 8) & 0xFF) + (currentError[e + 1] >> 4));
+                int b = clamp((pixel & 0xFF) + (currentError[e + 2] >> 4));
+                int adjusted = a == 0 ? 0 : (a << 24) | (r << 16) | (g << 8) | b;
+                int index = findNearest(adjusted, palette, cache);
+                indices[i] = (byte) index;
+                if (a == 0) {
+                    continue;
+                }
+                int chosen = palette[index];
+                diffuse(currentError, nextError, e, r - ((chosen >> 16) & 0xFF));
+                diffuse(currentError, nextError, e + 1, g - ((chosen >> 8) & 0xFF));
+                diffuse(currentError, nextError, e + 2, b - (chosen & 0xFF));
+            }
+            int[] swap = currentError;
+            currentError = nextError;
+            nextError = swap;
+        }
+    }
+
+    /** 依7/16、3/16、5/16、1/16比例擴散誤差(誤差以16倍保存) */
+    private static void diffuse(int[] currentError, int[] nextError, int index, int error) {
+        currentError[index + 3] += error * 7;
+        nextError[index - 3] += error * 3;
+        nextError[index] += error * 5;
+        nextError[index + 3] += error;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+
+    private static int findNearest(int pixel, int[] palette, ColorIndexMap cache) {
+        int cached = cache.get(pixel);
+        if (cached >= 0) {
+            return cached;
+        }
+        int a = pixel >>> 24;
+        int r = (pixel >> 16) & 0xFF;
+        int g = (pixel >> 8) & 0xFF;
+        int b = pixel & 0xFF;
+        int nearest = 0;
+        long minDistance = Long.MAX_VALUE;
+        for (int i = 0; i < palette.length; i++) {
+            int color = palette[i];
+            int da = a - (color >>> 24);
+            int dr = r - ((color >> 16) & 0xFF);
+            int dg = g - ((color >> 8) & 0xFF);
+            int db = b - (color & 0xFF);
+            long distance = (long) da * da * 2 + dr * dr + dg * dg + db * db;
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearest = i;
+            }
+        }
+        if (cache.isFull()) {
+            cache.clear();
+        }
+        cache.put(pixel, nearest);
+        return nearest;
+    }
+
+    private static IndexColorModel toColorModel(int[] palette) {
+        int size = palette.length;
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        byte[] a = new byte[size];
+        boolean opaque = true;
+        for (int i = 0; i < size; i++) {
+            r[i] = (byte) (palette[i] >> 16);
+            g[i] = (byte) (palette[i] >> 8);
+            b[i] = (byte) palette[i];
+            a[i] = (byte) (palette[i] >>> 24);
+            opaque &= palette[i] >>> 24 == 255;
+        }
+        // 不透明時不建立透明度資料，PNG不會輸出tRNS區塊
+        return opaque
+                ? new IndexColorModel(8, size, r, g, b)
+                : new IndexColorModel(8, size, r, g, b, a);
+    }
+
+    /** 含透明度的八元樹(每節點16個子節點) */
+    private static class Octree {
+
+        private final Node root = new Node();
+
+        /** 各層的非葉節點 */
+        private final List<List<Node>> levels = new ArrayList<>();
+
+        private int leafCount;
+
+        private Octree() {
+            for (int i = 0; i < MAX_DEPTH; i++) {
+                this.levels.add(new ArrayList<>());
+            }
+            this.levels.get(0).add(this.root);
+        }
+
+        private void add(int pixel) {
+            int a = pixel >>> 24;
+            int r = (pixel >> 16) & 0xFF;
+            int g = (pixel >> 8) & 0xFF;
+            int b = pixel & 0xFF;
+            Node node = this.root;
+            for (int level = 0; level < MAX_DEPTH; level++) {
+                node.count++;
+                int shift = 7 - level;
+                int childIndex =
+                        ((a >> shift) & 1) << 3
+                                | ((r >> shift) & 1) << 2
+                                | ((g >> shift) & 1) << 1
+                                | ((b >> shift) & 1);
+                if (null == node.children) {
+                    node.children = new Node[16];
+                }
+                Node child = node.children[childIndex];
+                if (null == child) {
+                    child = new Node();
+                    node.children[childIndex] = child;
+                    if (level + 1 < MAX_DEPTH) {
+                        this.levels.get(level + 1).add(child);
+                    } else {
+                        child.leaf = true;
+                        this.leafCount++;
+                    }
+                }
+                node = child;
+            }
+            node.count++;
+            node.alphaSum += a;
+            node.redSum += r;
+            node.greenSum += g;
+            node.blueSum += b;
+        }
+
+        /** 由最深層開始，合併像素數量最少的節點，直到葉節點數量不超過上限 */
+        private void reduce(int maxColors) {
+            for (int level = MAX_DEPTH - 1; level >= 0 && this.leafCount > maxColors; level--) {
+                List<Node> nodes = this.levels.get(level);
+                nodes.sort((n1, n2) -> Long.compare(n2.count, n1.count));
+                for (int i = nodes.size() - 1; i >= 0 && this.leafCount > maxColors; i--) {
+                    merge(nodes.get(i));
+                }
+            }
+        }
+
+        private void merge(Node node) {
+            int childCount = 0;
+            for (Node child : node.children) {
+                if (null != child) {
+                    node.alphaSum += child.alphaSum;
+                    node.redSum += child.redSum;
+                    node.greenSum += child.greenSum;
+                    node.blueSum += child.blueSum;
+                    childCount++;
+                }
+            }
+            node.children = null;
+            node.leaf = true;
+            this.leafCount -= childCount - 1;
+        }
+
+        private int[] getPalette() {
+            List<Integer> palette = new ArrayList<>();
+            collect(this.root, palette);
+            return palette.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private void collect(Node node, List<Integer> palette) {
+            if (node.leaf) {
+                long count = Math.max(1, node.count);
+                int a = (int) (node.alphaSum / count);
+                int r = (int) (node.redSum / count);
+                int g = (int) (node.greenSum / count);
+                int b = (int) (node.blueSum / count);
+                palette.add(a << 24 | r << 16 | g << 8 | b);
+                return;
+            }
+            if (null == node.children) {
+                return;
+            }
+            for (Node child : node.children) {
+                if (null != child) {
+                    collect(child, palette);
+                }
+            }
+        }
+    }
+
+    private static class Node {
+
+        /** 經過此節點的像素數 */
+        private long count;
+
+        private long alphaSum;
+
+        private long redSum;
+
+        private long greenSum;
+
+        private long blueSum;
+
+        private boolean leaf;
+
+        private Node[] children;
+    }
+
+    /** 以開放定址法保存顏色與索引的對應 */
+    private static class ColorIndexMap {
+
+        private final int[] keys;
+
+        private final int[] values;
+
+        private final int mask;
+
+        private final int capacity;
+
+        private int size;
+
+        private ColorIndexMap(int capacity) {
+            int tableSize = Integer.highestOneBit(capacity * 2 - 1) * 2;
+            this.keys = new int[tableSize];
+            this.values = new int[tableSize];
+            this.mask = tableSize - 1;
+            this.capacity = capacity;
+            Arrays.fill(this.values, -1);
+        }
+
+        private int get(int key) {
+            int slot = hash(key) & this.mask;
+            while (this.values[slot] >= 0) {
+                if (this.keys[slot] == key) {
+                    return this.values[slot];
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        private void put(int key, int value) {
+            int slot = hash(key) & this.mask;
+            while (this.values[slot] >= 0) {
+                if (this.keys[slot] == key) {
+                    this.values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = value;
+            this.size++;
+        }
+
+        private boolean isFull() {
+            return this.size >= this.capacity;
+        }
+
+        private void clear() {
+            Arrays.fill(this.values, -1);
+            this.size = 0;
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.github.af19git5.utils;
+
+import io.github.af19git5.io.ByteBufferImageInputStream;
+
+import lombok.NonNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * 圖檔讀取共用
+ *
+ * <p>指定目標大小時，會先讀取檔頭取得原始大小，再以抽樣方式解碼，避免將遠大於目標大小的完整圖片載入記憶體
+ *
+ * @author Jimmy Kang
+ */
+public class ImageReadUtils {
+
+    /**
+     * 讀取圖檔
+     *
+     * @param file 圖檔
+     * @param width 目標寬(0為不指定)
+     * @param height 目標高(0為不指定)
+     * @return 解碼後圖片，無法解碼時為null
+     */
+    public static BufferedImage read(@NonNull File file, int width, int height)
+            throws IOException {
+        if (!file.canRead()) {
+            throw new IOException("無法讀取圖檔");
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return read(input, width, height);
+        }
+    }
+
+    /**
+     * 讀取圖檔，直接由緩衝區解碼不另外複製內容
+     *
+     * @param buffer 圖檔內容
+     * @param width 目標寬(0為不指定)
+     * @param height 目標高(0為不指定)
+     * @return 解碼後圖片，無法解碼時為null
+     */
+    public static BufferedImage read(@NonNull ByteBuffer buffer, int width, int height)
+            throws IOException {
+        try (ImageInputStream input = new ByteBufferImageInputStream(buffer)) {
+            return read(input, width, height);
+        }
+    }
+
+    /**
+     * 讀取圖檔
+     *
+     * @param input 圖檔輸入流
+     * @param width 目標寬(0為不指定)
+     * @param height 目標高(0為不指定)
+     * @return 解碼後圖片，無法解碼時為null
+     */
+    public static BufferedImage read(ImageInputStream input, int width, int height)
+            throws IOException {
+        if (null == input) {
+            throw new IOException("無法建立圖檔輸入流");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling =
+                    getSubsampling(reader.getWidth(0), reader.getHeight(0), width, height);
+            if (subsampling > 1) {
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * 僅讀取檔頭取得圖片大小，不解碼像素
+     *
+     * @param file 圖檔
+     * @return 圖片大小，無法解碼時為null
+     */
+    public static Dimension readSize(@NonNull File file) throws IOException {
+        if (!file.canRead()) {
+            throw new IOException("無法讀取圖檔");
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            return readSize(input);
+        }
+    }
+
+    /**
+     * 僅讀取檔頭取得圖片大小，不解碼像素
+     *
+     * @param buffer 圖檔內容
+     * @return 圖片大小，無法解碼時為null
+     */
+    public static Dimension readSize(@NonNull ByteBuffer buffer) throws IOException {
+        try (ImageInputStream input = new ByteBufferImageInputStream(buffer)) {
+            return readSize(input);
+        }
+    }
+
+    /**
+     * 僅讀取檔頭取得圖片大小，不解碼像素
+     *
+     * @param input 圖檔輸入流
+     * @return 圖片大小，無法解碼時為null
+     */
+    public static Dimension readSize(ImageInputStream input) throws IOException {
+        if (null == input) {
+            throw new IOException("無法建立圖檔輸入流");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            return new Dimension(reader.getWidth(0), reader.getHeight(0));
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * 計算解碼抽樣倍數
+     *
+     * <p>抽樣後的大小至少保留目標大小的兩倍，讓後續縮放仍有足夠像素進行平均，避免鋸齒
+     *
+     * @param sourceWidth 原始寬
+     * @param sourceHeight 原始高
+     * @param width 目標寬(0為不指定)
+     * @param height 目標高(0為不指定)
+     * @return 抽樣倍數(1為不抽樣)
+     */
+    public static int getSubsampling(int sourceWidth, int sourceHeight, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return 1;
+        }
+        return Math.max(1, Math.min(sourceWidth / (width * 2), sourceHeight / (height * 2)));
+    }
+}
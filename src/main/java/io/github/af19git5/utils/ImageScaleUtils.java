@@ -0,0 +1,376 @@
+package io.github.af19git5.utils;
+
+import io.github.af19git5.type.ScaleType;
+
+import lombok.NonNull;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * 圖片縮放共用
+ *
+ * <p>所有演算法皆直接操作預乘透明度(premultiplied ARGB)的int陣列，縮放結果為{@link
+ * BufferedImage#TYPE_INT_ARGB_PRE}圖片，不透明的來源圖片則為{@link BufferedImage#TYPE_INT_RGB}以保留不透明性。來源像素量較大時會將目標列分散至多核心處理
+ *
+ * @author Jimmy Kang
+ */
+public class ImageScaleUtils {
+
+    /** 來源像素數超過此數量時，改為多執行緒處理 */
+    private static final long PARALLEL_THRESHOLD = 1 << 20;
+
+    /**
+     * 縮放圖片
+     *
+     * @param source 來源圖片
+     * @param width 目標寬
+     * @param height 目標高
+     * @param scaleType 縮放演算法
+     * @return 縮放後圖片
+     */
+    public static BufferedImage scale(
+            @NonNull BufferedImage source, int width, int height, @NonNull ScaleType scaleType) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("縮放大小需大於0");
+        }
+        int sourceWidth = source.getWidth();
+        int sourceHeight = source.getHeight();
+        int[] sourcePixels = toPremultipliedPixels(source);
+
+        // 不透明圖片縮放後仍不透明，輸出為RGB(透明度位元組會被忽略)
+        BufferedImage target =
+                new BufferedImage(
+                        width,
+                        height,
+                        source.getTransparency() == Transparency.OPAQUE
+                                ? BufferedImage.TYPE_INT_RGB
+                                : BufferedImage.TYPE_INT_ARGB_PRE);
+        int[] targetPixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        switch (scaleType) {
+            case NEAREST:
+                nearest(sourcePixels, sourceWidth, sourceHeight, targetPixels, width, height);
+                break;
+            case BILINEAR:
+                bilinear(sourcePixels, sourceWidth, sourceHeight, targetPixels, width, height);
+                break;
+            case PROGRESSIVE:
+                progressive(sourcePixels, sourceWidth, sourceHeight, targetPixels, width, height);
+                break;
+            case AREA_AVERAGE:
+            default:
+                if (width >= sourceWidth && height >= sourceHeight) {
+                    bilinear(sourcePixels, sourceWidth, sourceHeight, targetPixels, width, height);
+                } else {
+                    areaAverage(
+                            sourcePixels, sourceWidth, sourceHeight, targetPixels, width, height);
+                }
+                break;
+        }
+        return target;
+    }
+
+    /**
+     * 取得圖片的預乘透明度像素陣列
+     *
+     * <p>若圖片本身即為單純排列的{@link BufferedImage#TYPE_INT_ARGB_PRE}，直接回傳其像素陣列(呼叫端不可修改)
+     *
+     * @param image 圖片
+     * @return 像素陣列
+     */
+    public static int[] toPremultipliedPixels(@NonNull BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB_PRE && isPackedRaster(image)) {
+            return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+        if (image.getType() == BufferedImage.TYPE_INT_RGB && isPackedRaster(image)) {
+            // 不透明圖片僅需補上透明度
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++) {
+                pixels[i] = data[i] | 0xFF000000;
+            }
+            return pixels;
+        }
+        BufferedImage converted =
+                new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = converted.createGraphics();
+        try {
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return ((DataBufferInt) converted.getRaster().getDataBuffer()).getData();
+    }
+
+    /** 是否為單純排列(無偏移、無間距)的int像素陣列 */
+    static boolean isPackedRaster(BufferedImage image) {
+        Raster raster = image.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferInt)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+            return false;
+        }
+        SinglePixelPackedSampleModel sampleModel =
+                (SinglePixelPackedSampleModel) raster.getSampleModel();
+        return sampleModel.getScanlineStride() == image.getWidth()
+                && raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getOffset() == 0
+                && raster.getDataBuffer().getSize() == image.getWidth() * image.getHeight();
+    }
+
+    /** 最近鄰插值 */
+    private static void nearest(
+            int[] source,
+            int sourceWidth,
+            int sourceHeight,
+            int[] target,
+            int targetWidth,
+            int targetHeight) {
+        int[] sourceX = new int[targetWidth];
+        for (int x = 0; x < targetWidth; x++) {
+            sourceX[x] = Math.min(sourceWidth - 1, (int) ((x + 0.5) * sourceWidth / targetWidth));
+        }
+        forEachRow(
+                targetHeight,
+                (long) targetWidth * targetHeight,
+                y -> {
+                    int sourceY =
+                            Math.min(
+                                    sourceHeight - 1,
+                                    (int) ((y + 0.5) * sourceHeight / targetHeight));
+                    int sourceOffset = sourceY * sourceWidth;
+                    int targetOffset = y * targetWidth;
+                    for (int x = 0; x < targetWidth; x++) {
+                        target[targetOffset + x] = source[sourceOffset + sourceX[x]];
+                    }
+                });
+    }
+
+    /** 雙線性插值 */
+    private static void bilinear(
+            int[] source,
+            int sourceWidth,
+            int sourceHeight,
+            int[] target,
+            int targetWidth,
+            int targetHeight) {
+        int[] x0 = new int[targetWidth];
+        int[] x1 = new int[targetWidth];
+        int[] fx = new int[targetWidth];
+        for (int x = 0; x < targetWidth; x++) {
+            double sourceX = Math.max(0, (x + 0.5) * sourceWidth / targetWidth - 0.5);
+            x0[x] = Math.min(sourceWidth - 1, (int) sourceX);
+            x1[x] = Math.min(sourceWidth - 1, x0[x] + 1);
+            fx[x] = (int) ((sourceX - x0[x]) * 256);
+        }
+        forEachRow(
+                targetHeight,
+                (long) targetWidth * targetHeight,
+                y -> {
+                    double sourceY = Math.max(0, (y + 0.5) * sourceHeight / targetHeight - 0.5);
+                    int y0 = Math.min(sourceHeight - 1, (int) sourceY);
+                    int y1 = Math.min(sourceHeight - 1, y0 + 1);
+                    int fy = (int) ((sourceY - y0) * 256);
+                    int row0 = y0 * sourceWidth;
+                    int row1 = y1 * sourceWidth;
+                    int targetOffset = y * targetWidth;
+                    for (int x = 0; x < targetWidth; x++) {
+                        target[targetOffset + x] =
+                                interpolate(
+                                        source[row0 + x0[x]],
+                                        source[row0 + x1[x]],
+                                        source[row1 + x0[x]],
+                                        source[row1 + x1[x]],
+                                        fx[x],
+                                        fy);
+                    }
+                });
+    }
+
+    /** 以256為單位的權重插值四個像素 */
+    private static int interpolate(int c00, int c10, int c01, int c11, int fx, int fy) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int top = ((c00 >>> shift) & 0xFF) * (256 - fx) + ((c10 >>> shift) & 0xFF) * fx;
+            int bottom = ((c01 >>> shift) & 0xFF) * (256 - fx) + ((c11 >>> shift) & 0xFF) * fx;
+            int value = (top * (256 - fy) + bottom * fy + (1 << 15)) >>> 16;
+            result |= value << shift;
+        }
+        return result;
+    }
+
+    /** 逐次減半後以雙線性插值縮放 */
+    private static void progressive(
+            int[] source,
+            int sourceWidth,
+            int sourceHeight,
+            int[] target,
+            int targetWidth,
+            int targetHeight) {
+        int[] current = source;
+        int currentWidth = sourceWidth;
+        int currentHeight = sourceHeight;
+        while (currentWidth / 2 >= targetWidth || currentHeight / 2 >= targetHeight) {
+            boolean halveX = currentWidth / 2 >= targetWidth;
+            boolean halveY = currentHeight / 2 >= targetHeight;
+            int nextWidth = halveX ? currentWidth / 2 : currentWidth;
+            int nextHeight = halveY ? currentHeight / 2 : currentHeight;
+            int[] next = new int[nextWidth * nextHeight];
+            halve(current, currentWidth, next, nextWidth, nextHeight, halveX, halveY);
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        }
+        bilinear(current, currentWidth, currentHeight, target, targetWidth, targetHeight);
+    }
+
+    /** 以2x2(或2x1)平均將圖片寬高減半 */
+    private static void halve(
+            int[] source,
+            int sourceWidth,
+            int[] target,
+            int targetWidth,
+            int targetHeight,
+            boolean halveX,
+            boolean halveY) {
+        int stepX = halveX ? 1 : 0;
+        int stepY = halveY ? sourceWidth : 0;
+        forEachRow(
+                targetHeight,
+                (long) sourceWidth * targetHeight * (halveY ? 2 : 1),
+                y -> {
+                    int sourceOffset = (halveY ? y * 2 : y) * sourceWidth;
+                    int targetOffset = y * targetWidth;
+                    for (int x = 0; x < targetWidth; x++) {
+                        int index = sourceOffset + (halveX ? x * 2 : x);
+                        int c00 = source[index];
+                        int c10 = source[index + stepX];
+                        int c01 = source[index + stepY];
+                        int c11 = source[index + stepX + stepY];
+                        int result = 0;
+                        for (int shift = 0; shift < 32; shift += 8) {
+                            int sum =
+                                    ((c00 >>> shift) & 0xFF)
+                                            + ((c10 >>> shift) & 0xFF)
+                                            + ((c01 >>> shift) & 0xFF)
+                                            + ((c11 >>> shift) & 0xFF);
+                            // 非減半方向的像素重複計算，除以4即可取得平均
+                            result |= ((sum + 2) >>> 2) << shift;
+                        }
+                        target[targetOffset + x] = result;
+                    }
+                });
+    }
+
+    /** 區域平均 */
+    private static void areaAverage(
+            int[] source,
+            int sourceWidth,
+            int sourceHeight,
+            int[] target,
+            int targetWidth,
+            int targetHeight) {
+        AreaWeights weightsX = new AreaWeights(sourceWidth, targetWidth);
+        AreaWeights weightsY = new AreaWeights(sourceHeight, targetHeight);
+        forEachRow(
+                targetHeight,
+                (long) sourceWidth * sourceHeight,
+                y -> {
+                    float[] sum = new float[targetWidth * 4];
+                    int startY = weightsY.start[y];
+                    for (int ky = 0; ky < weightsY.count[y]; ky++) {
+                        float weightY = weightsY.weights[weightsY.offset[y] + ky];
+                        int sourceOffset = (startY + ky) * sourceWidth;
+                        for (int x = 0; x < targetWidth; x++) {
+                            int startX = weightsX.start[x];
+                            int weightOffset = weightsX.offset[x];
+                            float a = 0, r = 0, g = 0, b = 0;
+                            for (int kx = 0; kx < weightsX.count[x]; kx++) {
+                                int pixel = source[sourceOffset + startX + kx];
+                                float weight = weightsX.weights[weightOffset + kx];
+                                a += (pixel >>> 24) * weight;
+                                r += ((pixel >> 16) & 0xFF) * weight;
+                                g += ((pixel >> 8) & 0xFF) * weight;
+                                b += (pixel & 0xFF) * weight;
+                            }
+                            int index = x * 4;
+                            sum[index] += a * weightY;
+                            sum[index + 1] += r * weightY;
+                            sum[index + 2] += g * weightY;
+                            sum[index + 3] += b * weightY;
+                        }
+                    }
+                    int targetOffset = y * targetWidth;
+                    for (int x = 0; x < targetWidth; x++) {
+                        int index = x * 4;
+                        target[targetOffset + x] =
+                                (clamp(sum[index]) << 24)
+                                        | (clamp(sum[index + 1]) << 16)
+                                        | (clamp(sum[index + 2]) << 8)
+                                        | clamp(sum[index + 3]);
+                    }
+                });
+    }
+
+    private static int clamp(float value) {
+        return Math.min(255, Math.max(0, (int) (value + 0.5f)));
+    }
+
+    /** 逐列執行，工作量較大時分散至多核心 */
+    private static void forEachRow(int rowCount, long work, IntConsumer rowTask) {
+        if (work >= PARALLEL_THRESHOLD && rowCount > 1) {
+            IntStream.range(0, rowCount).parallel().forEach(rowTask);
+        } else {
+            for (int row = 0; row < rowCount; row++) {
+                rowTask.accept(row);
+            }
+        }
+    }
+
+    /** 區域平均單一方向的來源像素範圍及權重 */
+    private static class AreaWeights {
+
+        private final int[] start;
+
+        private final int[] count;
+
+        private final int[] offset;
+
+        private final float[] weights;
+
+        private AreaWeights(int sourceSize, int targetSize) {
+            this.start = new int[targetSize];
+            this.count = new int[targetSize];
+            this.offset = new int[targetSize];
+            double scale = (double) sourceSize / targetSize;
+            int total = 0;
+            for (int i = 0; i < targetSize; i++) {
+                double left = i * scale;
+                double right = Math.min(sourceSize, (i + 1) * scale);
+                this.start[i] = Math.min(sourceSize - 1, (int) left);
+                this.count[i] = Math.max(1, (int) Math.ceil(right) - this.start[i]);
+                this.offset[i] = total;
+                total += this.count[i];
+            }
+            this.weights = new float[total];
+            for (int i = 0; i < targetSize; i++) {
+                double left = i * scale;
+                double right = Math.min(sourceSize, (i + 1) * scale);
+                double span = Math.max(right - left, 1e-9);
+                for (int k = 0; k < this.count[i]; k++) {
+                    int pixel = this.start[i] + k;
+                    double coverage = Math.min(right, pixel + 1) - Math.max(left, pixel);
+                    this.weights[this.offset[i] + k] = (float) (Math.max(0, coverage) / span);
+                }
+            }
+        }
+    }
+}
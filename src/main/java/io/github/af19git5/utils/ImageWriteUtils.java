@@ -0,0 +1,226 @@
+package io.github.af19git5.utils;
+
+import io.github.af19git5.type.ChromaSubsampling;
+import io.github.af19git5.type.EncoderOptions;
+import io.github.af19git5.type.OutputType;
+import io.github.af19git5.type.PngFilter;
+
+import lombok.NonNull;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.zip.Deflater;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * 圖檔輸出共用
+ *
+ * <p>依輸出格式及編碼參數選擇編碼方式，JPEG透過{@link ImageWriteParam}設定品質、漸進式編碼及色度抽樣；PNG設定壓縮等級、過濾方式或壓縮執行緒數時使用{@link
+ * PngEncoder}，否則使用ImageIO預設編碼；PNG8先以{@link ColorQuantizer}量化為索引色後輸出
+ *
+ * @author Jimmy Kang
+ */
+public class ImageWriteUtils {
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    /**
+     * 輸出圖檔
+     *
+     * @param image 圖片
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public static void write(
+            @NonNull BufferedImage image,
+            @NonNull OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream)
+            throws IOException {
+        switch (outputType) {
+            case JPG:
+                writeJpeg(image, options, outputStream);
+                break;
+            case PNG:
+                writePng(image, options, outputStream);
+                break;
+            case PNG8:
+                BufferedImage quantized =
+                        ColorQuantizer.quantize(
+                                image, options.getPaletteSize(), options.isDither());
+                writeImage(quantized, "png", options, outputStream);
+                break;
+        }
+    }
+
+    /**
+     * 輸出圖檔至檔案
+     *
+     * @param image 圖片
+     * @param outputType 輸出格式
+     * @param options 編碼參數
+     * @param file 輸出檔案位置
+     */
+    public static void write(
+            @NonNull BufferedImage image,
+            @NonNull OutputType outputType,
+            @NonNull EncoderOptions options,
+            @NonNull File file)
+            throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            write(image, outputType, options, outputStream);
+        }
+    }
+
+    /**
+     * 建立逐列寫入的PNG編碼器，用於不保留完整畫布的分段繪製
+     *
+     * @param options 編碼參數
+     * @param outputStream 輸出流(不會被關閉)
+     * @param width 圖片寬
+     * @param height 圖片高
+     * @param hasAlpha 是否保留透明度
+     * @return PNG編碼器(使用完畢後需關閉)
+     */
+    public static PngEncoder createPngEncoder(
+            @NonNull EncoderOptions options,
+            @NonNull OutputStream outputStream,
+            int width,
+            int height,
+            boolean hasAlpha)
+            throws IOException {
+        return new PngEncoder(
+                outputStream,
+                width,
+                height,
+                hasAlpha,
+                getPngCompressionLevel(options),
+                getPngFilter(options),
+                options.getPngDeflateThreads(),
+                options.getDeflateExecutor());
+    }
+
+    private static void writePng(
+            BufferedImage image, EncoderOptions options, OutputStream outputStream)
+            throws IOException {
+        if (options.hasPngOptions()) {
+            PngEncoder.write(
+                    image,
+                    getPngCompressionLevel(options),
+                    getPngFilter(options),
+                    options.getPngDeflateThreads(),
+                    options.getDeflateExecutor(),
+                    outputStream);
+            return;
+        }
+        writeImage(image, "png", options, outputStream);
+    }
+
+    private static int getPngCompressionLevel(EncoderOptions options) {
+        return null == options.getPngCompressionLevel()
+                ? Deflater.DEFAULT_COMPRESSION
+                : options.getPngCompressionLevel();
+    }
+
+    private static PngFilter getPngFilter(EncoderOptions options) {
+        return null == options.getPngFilter() ? PngFilter.ADAPTIVE : options.getPngFilter();
+    }
+
+    private static void writeJpeg(
+            BufferedImage image, EncoderOptions options, OutputStream outputStream)
+            throws IOException {
+        // JPEG不支援透明度，僅於畫布明確指定含透明度的像素格式時需要轉換(透明處為黑色，與繪製於不透明畫布結果相同)
+        if (image.getColorModel().hasAlpha()) {
+            BufferedImage opaque =
+                    new BufferedImage(
+                            image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = opaque.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, null);
+            } finally {
+                graphics.dispose();
+            }
+            image = opaque;
+        }
+        writeImage(image, "jpg", options, outputStream);
+    }
+
+    private static void writeImage(
+            BufferedImage image,
+            String formatName,
+            EncoderOptions options,
+            OutputStream outputStream)
+            throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(formatName);
+        if (!writers.hasNext()) {
+            throw new IOException("找不到圖檔編碼器: " + formatName);
+        }
+        ImageWriter writer = writers.next();
+        // 使用記憶體暫存，避免ImageIO預設建立暫存檔
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(outputStream)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            IIOMetadata metadata = null;
+            if (formatName.equals("png") && null != options.getPngCompressionLevel()) {
+                // PNG編碼器以9 - round(9 * quality)換算壓縮等級
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality((9 - options.getPngCompressionLevel()) / 9f);
+            }
+            if (formatName.equals("jpg") && options.hasJpegOptions()) {
+                if (null != options.getJpegQuality()) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(options.getJpegQuality());
+                }
+                if (options.isJpegProgressive()) {
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                }
+                if (null != options.getChromaSubsampling()) {
+                    metadata =
+                            writer.getDefaultImageMetadata(new ImageTypeSpecifier(image), param);
+                    setChromaSubsampling(metadata, options.getChromaSubsampling());
+                }
+            }
+            writer.write(null, new IIOImage(image, null, metadata), param);
+            output.flush();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /** 設定JPEG亮度元件的抽樣係數，色度元件固定為1 */
+    private static void setChromaSubsampling(
+            IIOMetadata metadata, ChromaSubsampling chromaSubsampling) throws IOException {
+        Node root = metadata.getAsTree(JPEG_METADATA_FORMAT);
+        NodeList components = ((Element) root).getElementsByTagName("componentSpec");
+        for (int i = 0; i < components.getLength(); i++) {
+            Element component = (Element) components.item(i);
+            boolean luma = i == 0;
+            component.setAttribute(
+                    "HsamplingFactor",
+                    String.valueOf(luma ? chromaSubsampling.getHorizontalFactor() : 1));
+            component.setAttribute(
+                    "VsamplingFactor",
+                    String.valueOf(luma ? chromaSubsampling.getVerticalFactor() : 1));
+        }
+        metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+    }
+}
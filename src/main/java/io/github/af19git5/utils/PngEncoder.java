@@ -0,0 +1,438 @@
+package io.github.af19git5.utils;
+
+import io.github.af19git5.io.ParallelDeflaterOutputStream;
+import io.github.af19git5.type.PngFilter;
+
+import lombok.NonNull;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * PNG編碼器
+ *
+ * <p>逐列寫入像素並直接壓縮輸出，不需保留整張圖片的編碼結果。可指定壓縮等級及列過濾方式，輸出8位元RGB或RGBA格式。
+ * 指定多個壓縮執行緒時以{@link ParallelDeflaterOutputStream}平行壓縮，輸出仍為單一IDAT壓縮串流的標準PNG。
+ * 編碼失敗時需呼叫{@link #close()}釋放壓縮資源
+ *
+ * @author Jimmy Kang
+ */
+public class PngEncoder implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /** IDAT區塊大小 */
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+
+    private final int width;
+
+    private final int height;
+
+    private final int bytesPerPixel;
+
+    private final PngFilter filter;
+
+    /** 單執行緒壓縮時使用 */
+    private final Deflater deflater;
+
+    private final ChunkOutputStream chunkOutputStream;
+
+    private final OutputStream idatOutputStream;
+
+    /** 上一列(未過濾，第一列之前為全0) */
+    private byte[] previousRow;
+
+    /** 目前列(未過濾) */
+    private byte[] currentRow;
+
+    /** 過濾後的列(第一個byte為過濾方式) */
+    private final byte[] filteredRow;
+
+    /** 自動選擇過濾方式時的暫存列 */
+    private final byte[] candidateRow;
+
+    private int rowCount;
+
+    /**
+     * @param outputStream 輸出流(不會被關閉)
+     * @param width 圖片寬
+     * @param height 圖片高
+     * @param hasAlpha 是否保留透明度
+     * @param compressionLevel 壓縮等級(0~9，-1為預設)
+     * @param filter 列過濾方式
+     */
+    public PngEncoder(
+            @NonNull OutputStream outputStream,
+            int width,
+            int height,
+            boolean hasAlpha,
+            int compressionLevel,
+            @NonNull PngFilter filter)
+            throws IOException {
+        this(outputStream, width, height, hasAlpha, compressionLevel, filter, 1, null);
+    }
+
+    /**
+     * @param outputStream 輸出流(不會被關閉)
+     * @param width 圖片寬
+     * @param height 圖片高
+     * @param hasAlpha 是否保留透明度
+     * @param compressionLevel 壓縮等級(0~9，-1為預設)
+     * @param filter 列過濾方式
+     * @param deflateThreads 同時壓縮的區塊數(1為單執行緒壓縮)
+     * @param executor 多執行緒壓縮使用的執行緒池(null為ForkJoinPool.commonPool())
+     */
+    public PngEncoder(
+            @NonNull OutputStream outputStream,
+            int width,
+            int height,
+            boolean hasAlpha,
+            int compressionLevel,
+            @NonNull PngFilter filter,
+            int deflateThreads,
+            Executor executor)
+            throws IOException {
+        this.outputStream = outputStream;
+        this.width = width;
+        this.height = height;
+        this.bytesPerPixel = hasAlpha ? 4 : 3;
+        this.filter = filter;
+        this.previousRow = new byte[width * this.bytesPerPixel];
+        this.currentRow = new byte[width * this.bytesPerPixel];
+        this.filteredRow = new byte[width * this.bytesPerPixel + 1];
+        this.candidateRow =
+                filter == PngFilter.ADAPTIVE ? new byte[width * this.bytesPerPixel + 1] : null;
+        this.chunkOutputStream = new ChunkOutputStream(outputStream);
+
+        outputStream.write(SIGNATURE);
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        // 位元深度8，色彩類型6(RGBA)或2(RGB)
+        header[8] = 8;
+        header[9] = (byte) (hasAlpha ? 6 : 2);
+        writeChunk(outputStream, "IHDR", header, header.length);
+
+        if (deflateThreads > 1) {
+            this.deflater = null;
+            this.idatOutputStream =
+                    new ParallelDeflaterOutputStream(
+                            this.chunkOutputStream,
+                            compressionLevel,
+                            deflateThreads,
+                            null == executor ? ForkJoinPool.commonPool() : executor);
+        } else {
+            this.deflater = new Deflater(compressionLevel);
+            this.idatOutputStream =
+                    new DeflaterOutputStream(this.chunkOutputStream, this.deflater, 8192);
+        }
+    }
+
+    /**
+     * 編碼圖片
+     *
+     * @param image 圖片
+     * @param compressionLevel 壓縮等級(0~9，-1為預設)
+     * @param filter 列過濾方式
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public static void write(
+            @NonNull BufferedImage image,
+            int compressionLevel,
+            @NonNull PngFilter filter,
+            @NonNull OutputStream outputStream)
+            throws IOException {
+        write(image, compressionLevel, filter, 1, null, outputStream);
+    }
+
+    /**
+     * 編碼圖片
+     *
+     * @param image 圖片
+     * @param compressionLevel 壓縮等級(0~9，-1為預設)
+     * @param filter 列過濾方式
+     * @param deflateThreads 同時壓縮的區塊數(1為單執行緒壓縮)
+     * @param executor 多執行緒壓縮使用的執行緒池(null為ForkJoinPool.commonPool())
+     * @param outputStream 輸出流(不會被關閉)
+     */
+    public static void write(
+            @NonNull BufferedImage image,
+            int compressionLevel,
+            @NonNull PngFilter filter,
+            int deflateThreads,
+            Executor executor,
+            @NonNull OutputStream outputStream)
+            throws IOException {
+        try (PngEncoder encoder =
+                new PngEncoder(
+                        outputStream,
+                        image.getWidth(),
+                        image.getHeight(),
+                        image.getColorModel().hasAlpha(),
+                        compressionLevel,
+                        filter,
+                        deflateThreads,
+                        executor)) {
+            encoder.writeImage(image, image.getHeight());
+            encoder.finish();
+        }
+    }
+
+    /**
+     * 寫入圖片的前rowCount列，可用於分段繪製的圖片
+     *
+     * @param image 圖片(寬需與編碼器相同)
+     * @param rowCount 寫入列數
+     */
+    public void writeImage(@NonNull BufferedImage image, int rowCount) throws IOException {
+        int width = this.width;
+        if (image.getWidth() != width || rowCount > image.getHeight()) {
+            throw new IOException("圖片大小與編碼器不符");
+        }
+        int type = image.getType();
+        boolean intRaster =
+                (type == BufferedImage.TYPE_INT_RGB
+                                || type == BufferedImage.TYPE_INT_ARGB
+                                || type == BufferedImage.TYPE_INT_ARGB_PRE)
+                        && ImageScaleUtils.isPackedRaster(image);
+        if (intRaster && type != BufferedImage.TYPE_INT_ARGB_PRE) {
+            // 像素格式與輸出相同，直接讀取像素陣列
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            for (int y = 0; y < rowCount; y++) {
+                writeRow(data, y * width);
+            }
+        } else if (intRaster) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            int[] row = new int[width];
+            for (int y = 0; y < rowCount; y++) {
+                unpremultiply(data, y * width, row, width);
+                writeRow(row, 0);
+            }
+        } else {
+            int[] row = new int[width];
+            for (int y = 0; y < rowCount; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                writeRow(row, 0);
+            }
+        }
+    }
+
+    /** 將預乘透明度的像素還原 */
+    private static void unpremultiply(int[] source, int offset, int[] target, int length) {
+        for (int i = 0; i < length; i++) {
+            int pixel = source[offset + i];
+            int a = pixel >>> 24;
+            if (a == 255 || a == 0) {
+                target[i] = a == 0 ? 0 : pixel;
+                continue;
+            }
+            float factor = 255f / a;
+            int r = (int) (((pixel >> 16) & 0xFF) * factor + 0.5f);
+            int g = (int) (((pixel >> 8) & 0xFF) * factor + 0.5f);
+            int b = (int) ((pixel & 0xFF) * factor + 0.5f);
+            target[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+
+    /**
+     * 寫入一列像素
+     *
+     * @param argb 像素(未預乘透明度的ARGB)
+     * @param offset 該列於陣列中的起始位置
+     */
+    public void writeRow(@NonNull int[] argb, int offset) throws IOException {
+        if (this.rowCount >= this.height) {
+            throw new IOException("寫入列數超過圖片高度");
+        }
+        byte[] row = this.currentRow;
+        int index = 0;
+        for (int x = 0; x < this.width; x++) {
+            int pixel = argb[offset + x];
+            row[index++] = (byte) (pixel >>> 16);
+            row[index++] = (byte) (pixel >>> 8);
+            row[index++] = (byte) pixel;
+            if (this.bytesPerPixel == 4) {
+                row[index++] = (byte) (pixel >>> 24);
+            }
+        }
+        byte[] filtered = filterRow();
+        this.idatOutputStream.write(filtered, 0, filtered.length);
+        this.currentRow = this.previousRow;
+        this.previousRow = row;
+        this.rowCount++;
+    }
+
+    /** 完成編碼，寫入剩餘的壓縮資料及結尾區塊 */
+    public void finish() throws IOException {
+        if (this.rowCount != this.height) {
+            throw new IOException("寫入列數與圖片高度不符");
+        }
+        try {
+            if (this.idatOutputStream instanceof ParallelDeflaterOutputStream) {
+                ((ParallelDeflaterOutputStream) this.idatOutputStream).finish();
+            } else {
+                ((DeflaterOutputStream) this.idatOutputStream).finish();
+            }
+            this.chunkOutputStream.flushChunk();
+        } finally {
+            if (null != this.deflater) {
+                this.deflater.end();
+            }
+        }
+        writeChunk(this.outputStream, "IEND", new byte[0], 0);
+        this.outputStream.flush();
+    }
+
+    /** 釋放壓縮資源，未完成編碼時放棄剩餘內容(不寫入結尾)，輸出流不會被關閉，可重複呼叫 */
+    @Override
+    public void close() {
+        if (null != this.deflater) {
+            this.deflater.end();
+        }
+    }
+
+    private byte[] filterRow() {
+        if (this.filter != PngFilter.ADAPTIVE) {
+            applyFilter(this.filter.getCode(), this.filteredRow);
+            return this.filteredRow;
+        }
+        // 以絕對值總和最小者作為該列的過濾方式
+        byte[] best = this.filteredRow;
+        byte[] candidate = this.candidateRow;
+        long bestSum = Long.MAX_VALUE;
+        byte[] result = null;
+        for (int code = 0; code <= 4; code++) {
+            byte[] target = result == best ? candidate : best;
+            applyFilter(code, target);
+            long sum = 0;
+            for (int i = 1; i < target.length; i++) {
+                sum += Math.abs((int) target[i]);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                result = target;
+            }
+        }
+        return result;
+    }
+
+    private void applyFilter(int code, byte[] target) {
+        byte[] row = this.currentRow;
+        byte[] previous = this.previousRow;
+        int bpp = this.bytesPerPixel;
+        target[0] = (byte) code;
+        for (int i = 0; i < row.length; i++) {
+            int raw = row[i] & 0xFF;
+            int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+            int up = previous[i] & 0xFF;
+            int upLeft = i >= bpp ? previous[i - bpp] & 0xFF : 0;
+            int value;
+            switch (code) {
+                case 1:
+                    value = raw - left;
+                    break;
+                case 2:
+                    value = raw - up;
+                    break;
+                case 3:
+                    value = raw - ((left + up) >>> 1);
+                    break;
+                case 4:
+                    value = raw - paeth(left, up, upLeft);
+                    break;
+                default:
+                    value = raw;
+                    break;
+            }
+            target[i + 1] = (byte) value;
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static void writeChunk(OutputStream outputStream, String type, byte[] data, int length)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] header = new byte[8];
+        writeInt(header, 0, length);
+        System.arraycopy(typeBytes, 0, header, 4, 4);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        byte[] trailer = new byte[4];
+        writeInt(trailer, 0, (int) crc.getValue());
+        outputStream.write(header);
+        outputStream.write(data, 0, length);
+        outputStream.write(trailer);
+    }
+
+    /** 將壓縮資料切分為IDAT區塊輸出 */
+    private static class ChunkOutputStream extends OutputStream {
+
+        private final OutputStream outputStream;
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        private int count;
+
+        private ChunkOutputStream(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.count == this.buffer.length) {
+                flushChunk();
+            }
+            this.buffer[this.count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (this.count == this.buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, this.buffer.length - this.count);
+                System.arraycopy(b, off, this.buffer, this.count, n);
+                this.count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (this.count > 0) {
+                writeChunk(this.outputStream, "IDAT", this.buffer, this.count);
+                this.count = 0;
+            }
+        }
+    }
+}
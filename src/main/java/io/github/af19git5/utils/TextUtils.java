@@ -0,0 +1,248 @@
+package io.github.af19git5.utils;
+
+import io.github.af19git5.cache.LruCache;
+import io.github.af19git5.font.FontAdvanceTable;
+import io.github.af19git5.font.FontRegistry;
+
+import lombok.NonNull;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 文字處理共用
+ *
+ * @author Jimmy Kang
+ */
+public class TextUtils {
+
+    /** 自動縮小字體結果快取 */
+    private static final LruCache<AutoScaleKey, Integer> AUTO_SCALE_CACHE =
+            new LruCache<>(4096, size -> 1);
+
+    /**
+     * 取得自動縮小後的字體大小，使每行文字寬度皆小於可用寬度
+     *
+     * <p>先以原字體大小量測並依比例估算，再以二分搜尋確認，量測次數與字體大小的對數成正比。相同字體、文字及可用寬度的結果會被快取
+     *
+     * @param font 原字體
+     * @param text 文字內容
+     * @param availableWidth 可用寬度
+     * @return 字體大小(不大於原字體大小，最小為1)
+     */
+    public static int getAutoScaleFontSize(
+            @NonNull Font font, @NonNull String text, int availableWidth) {
+        AutoScaleKey key = new AutoScaleKey(font, text, availableWidth);
+        Integer cached = AUTO_SCALE_CACHE.get(key);
+        if (null != cached) {
+            return cached;
+        }
+
+        String[] lines = text.split("\n");
+        int size = font.getSize();
+        int referenceWidth = getMaxLineWidth(font, lines);
+        int result;
+        if (referenceWidth < availableWidth) {
+            result = size;
+        } else if (availableWidth <= 0) {
+            result = 1;
+        } else {
+            // 找出最大可容納的字體大小，先以比例估算縮小搜尋範圍
+            int low = 1;
+            int high = size - 1;
+            long ratio = (long) size * availableWidth / referenceWidth;
+            int estimate = (int) Math.max(low, Math.min(high, ratio));
+            if (fits(font, lines, estimate, availableWidth)) {
+                low = estimate;
+            } else {
+                high = estimate - 1;
+            }
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (fits(font, lines, middle, availableWidth)) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            result = Math.max(1, low);
+        }
+        AUTO_SCALE_CACHE.put(key, result);
+        return result;
+    }
+
+    /**
+     * 移除指定字體名稱的自動縮小字體結果快取(同名字體重新註冊時使用)
+     *
+     * @param fontName 字體名稱({@link Font#getName()})
+     */
+    public static void removeAutoScaleFontSize(@NonNull String fontName) {
+        AUTO_SCALE_CACHE.removeIf(key -> key.font.getName().equals(fontName));
+    }
+
+    private static boolean fits(Font font, String[] lines, int size, int availableWidth) {
+        return getMaxLineWidth(FontRegistry.derive(font, size), lines) < availableWidth;
+    }
+
+    private static int getMaxLineWidth(Font font, String[] lines) {
+        FontAdvanceTable advanceTable = FontAdvanceTable.of(font);
+        int maxWidth = 0;
+        for (String line : lines) {
+            maxWidth = Math.max(maxWidth, advanceTable.stringWidth(line));
+        }
+        return maxWidth;
+    }
+
+    /**
+     * 將文字依換行符號及最大寬度斷行
+     *
+     * <p>逐字累加字寬，整體為線性時間，且只會建立最終每行的字串。拉丁文字於空白處斷行，中日韓文字可於任意字元間斷行，單一單字超過最大寬度時於字元間斷行
+     *
+     * @param text 文字內容
+     * @param advanceTable 字寬表
+     * @param maxWidth 最大寬度
+     * @return 斷行後的文字陣列
+     */
+    public static List<String> wrap(
+            @NonNull String text, @NonNull FontAdvanceTable advanceTable, int maxWidth) {
+        List<String> lineList = new ArrayList<>();
+        // 與String.split("\n")相同，忽略結尾的空行
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end == 0) {
+            if (text.isEmpty()) {
+                lineList.add(text);
+            }
+            return lineList;
+        }
+        int paragraphStart = 0;
+        while (paragraphStart <= end) {
+            int paragraphEnd = text.indexOf('\n', paragraphStart);
+            if (paragraphEnd < 0 || paragraphEnd > end) {
+                paragraphEnd = end;
+            }
+            wrapParagraph(text, paragraphStart, paragraphEnd, advanceTable, maxWidth, lineList);
+            paragraphStart = paragraphEnd + 1;
+        }
+        return lineList;
+    }
+
+    /** 將單一段落斷行 */
+    private static void wrapParagraph(
+            String text,
+            int start,
+            int end,
+            FontAdvanceTable advanceTable,
+            int maxWidth,
+            List<String> lineList) {
+        int lineStart = start;
+        float lineWidth = 0;
+        // 最後一個可斷行位置，及該位置之後已累加的寬度
+        int breakIndex = -1;
+        float widthAfterBreak = 0;
+        int previous = -1;
+        int i = start;
+        while (i < end) {
+            int codePoint = text.codePointAt(i);
+            if (i > lineStart
+                    && (isCjk(codePoint)
+                            || isCjk(previous)
+                            || Character.isWhitespace(previous))) {
+                breakIndex = i;
+                widthAfterBreak = 0;
+            }
+            float advance = advanceTable.getAdvance(codePoint);
+            // 超過寬度時斷行，行尾空白允許超出
+            if (lineWidth + advance > maxWidth
+                    && i > lineStart
+                    && !Character.isWhitespace(codePoint)) {
+                if (breakIndex > lineStart) {
+                    lineList.add(trimTrailingWhitespace(text, lineStart, breakIndex));
+                    lineStart = breakIndex;
+                    lineWidth = widthAfterBreak;
+                } else {
+                    lineList.add(text.substring(lineStart, i));
+                    lineStart = i;
+                    lineWidth = 0;
+                }
+                breakIndex = -1;
+                widthAfterBreak = 0;
+                // 換行後重新判斷目前字元
+                continue;
+            }
+            lineWidth += advance;
+            widthAfterBreak += advance;
+            previous = codePoint;
+            i += Character.charCount(codePoint);
+        }
+        lineList.add(text.substring(lineStart, end));
+    }
+
+    private static String trimTrailingWhitespace(String text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return text.substring(start, end);
+    }
+
+    /**
+     * 是否為可於任意字元間斷行的中日韓文字或全形標點
+     *
+     * @param codePoint 字元
+     * @return 是否為中日韓文字
+     */
+    public static boolean isCjk(int codePoint) {
+        if (codePoint < 0x2E80) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        if (script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL
+                || script == Character.UnicodeScript.BOPOMOFO) {
+            return true;
+        }
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+        return block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS;
+    }
+
+    private static class AutoScaleKey {
+
+        private final Font font;
+
+        private final String text;
+
+        private final int availableWidth;
+
+        private AutoScaleKey(Font font, String text, int availableWidth) {
+            this.font = font;
+            this.text = text;
+            this.availableWidth = availableWidth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AutoScaleKey)) {
+                return false;
+            }
+            AutoScaleKey key = (AutoScaleKey) o;
+            return this.availableWidth == key.availableWidth
+                    && this.font.equals(key.font)
+                    && this.text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.font, this.text, this.availableWidth);
+        }
+    }
+}
@@ -1,21 +1,76 @@
 import io.github.af19git5.EasyImage;
+import io.github.af19git5.builder.BatchBuilder;
+import io.github.af19git5.builder.ImageBuilder;
+import io.github.af19git5.builder.ImageTemplate;
+import io.github.af19git5.builder.RenderedFrame;
+import io.github.af19git5.cache.CompositeCache;
+import io.github.af19git5.cache.LruCache;
+import io.github.af19git5.cache.ScaledImageCache;
+import io.github.af19git5.cache.SourceImageCache;
+import io.github.af19git5.cache.TextLayoutCache;
+import io.github.af19git5.entity.Composite;
 import io.github.af19git5.entity.Ellipse;
 import io.github.af19git5.entity.Image;
 import io.github.af19git5.entity.Rectangle;
 import io.github.af19git5.entity.Text;
 import io.github.af19git5.exception.ImageException;
+import io.github.af19git5.font.FontAdvanceTable;
+import io.github.af19git5.font.FontRegistry;
+import io.github.af19git5.io.ByteBufferAllocator;
+import io.github.af19git5.type.ChromaSubsampling;
+import io.github.af19git5.type.EncoderOptions;
 import io.github.af19git5.type.OutputType;
+import io.github.af19git5.type.PixelFormat;
+import io.github.af19git5.type.PngFilter;
 import io.github.af19git5.type.PositionX;
 import io.github.af19git5.type.PositionY;
+import io.github.af19git5.type.ScaleType;
 import io.github.af19git5.type.TextPosition;
+import io.github.af19git5.utils.ColorQuantizer;
+import io.github.af19git5.utils.ImageReadUtils;
+import io.github.af19git5.utils.ImageScaleUtils;
+import io.github.af19git5.utils.TextUtils;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.awt.*;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
 
 /**
  * 單元測試
@@ -24,11 +79,10 @@ import java.net.URL;
  */
 public class EasyImageTests {
 
-    private static final String TEST_OUTPUT_PATH = "test-output/";
-
     /** 測試寫出 */
     @Test
-    public void test() throws ImageException, IOException, URISyntaxException {
+    public void test(@TempDir Path tempDir)
+            throws ImageException, IOException, URISyntaxException {
         URL testImageUrl = EasyImageTests.class.getResource("test.jpg");
         if (null == testImageUrl) {
             throw new IOException("查無測試檔案");
@@ -74,6 +128,1070 @@ public class EasyImageTests {
                                 .setStrokeColor(Color.GREEN)
                                 .setStrokeWidth(5)
                                 .build())
-                .buildFile(OutputType.PNG, new File(TEST_OUTPUT_PATH + "output.png"));
+                .buildFile(OutputType.PNG, tempDir.resolve("output.png").toFile());
+    }
+
+    /** 測試樣板繪製 */
+    @Test
+    public void testTemplate() throws ImageException {
+        ImageTemplate template =
+                EasyImage.init(300, 100, Color.WHITE)
+                        .add(
+                                PositionX.MIDDLE,
+                                PositionY.MIDDLE,
+                                Rectangle.init(200, 60).setColor(Color.RED).build())
+                        .add(
+                                PositionX.MIDDLE,
+                                PositionY.MIDDLE,
+                                Text.init("名稱")
+                                        .setWidth(200)
+                                        .setPosition(TextPosition.MIDDLE)
+                                        .setSlotName("name")
+                                        .build())
+                        .compile();
+        Assertions.assertEquals(Collections.singleton("name"), template.getSlotNames());
+
+        Map<String, String> alice = Collections.singletonMap("name", "Alice");
+        Map<String, String> bob = Collections.singletonMap("name", "Bob");
+        byte[] first = template.buildBytes(OutputType.PNG, alice);
+        Assertions.assertArrayEquals(first, template.buildBytes(OutputType.PNG, alice));
+        Assertions.assertFalse(Arrays.equals(first, template.buildBytes(OutputType.PNG, bob)));
+    }
+
+    /** 測試批次繪製 */
+    @Test
+    public void testBatch() throws ImageException {
+        BatchBuilder.BatchResult<Integer> result =
+                EasyImage.batch(
+                                EasyImage.init(200, 100)
+                                        .add(
+                                                0,
+                                                0,
+                                                Text.init("").setSlotName("index").build()))
+                        .setParallelism(4)
+                        .setMaxInFlight(8)
+                        .run(
+                                IntStream.range(0, 20).boxed(),
+                                index -> Collections.singletonMap("index", index.toString()),
+                                index -> {
+                                    if (index == 7) {
+                                        throw new IOException("測試失敗項目");
+                                    }
+                                    if (index == 11) {
+                                        throw new AssertionError("測試錯誤項目");
+                                    }
+                                    return new ByteArrayOutputStream();
+                                });
+        Assertions.assertEquals(18, result.getSuccessCount());
+        Assertions.assertEquals(2, result.getFailures().size());
+        List<BatchBuilder.BatchFailure<Integer>> failures = new ArrayList<>(result.getFailures());
+        failures.sort(Comparator.comparing(BatchBuilder.BatchFailure::getInput));
+        Assertions.assertEquals(7, failures.get(0).getInput());
+        Assertions.assertEquals(11, failures.get(1).getInput());
+        Assertions.assertTrue(failures.get(1).getException() instanceof ExecutionException);
+
+        // 讀取輸入資料失敗時需等待已送出的項目結束
+        AtomicInteger closedCount = new AtomicInteger();
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () ->
+                        EasyImage.batch(EasyImage.init(200, 100))
+                                .setParallelism(2)
+                                .run(
+                                        IntStream.range(0, 10)
+                                                .boxed()
+                                                .peek(
+                                                        index -> {
+                                                            if (index == 5) {
+                                                                throw new IllegalStateException();
+                                                            }
+                                                        }),
+                                        index -> Collections.emptyMap(),
+                                        index ->
+                                                new ByteArrayOutputStream() {
+                                                    @Override
+                                                    public void close() {
+                                                        closedCount.incrementAndGet();
+                                                    }
+                                                }));
+        Assertions.assertEquals(5, closedCount.get());
+    }
+
+    /** 測試圖片縮放演算法 */
+    @Test
+    public void testImageScale() {
+        // 左半紅、右半藍，右下角為半透明綠
+        BufferedImage source = new BufferedImage(64, 32, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = source.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 32, 32);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(32, 0, 32, 32);
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.setColor(new Color(0, 255, 0, 128));
+        graphics.fillRect(48, 16, 16, 16);
+        graphics.dispose();
+
+        for (ScaleType scaleType : ScaleType.values()) {
+            for (int[] size : new int[][] {{16, 8}, {7, 5}, {128, 64}}) {
+                BufferedImage scaled = ImageScaleUtils.scale(source, size[0], size[1], scaleType);
+                Assertions.assertEquals(size[0], scaled.getWidth(), scaleType.name());
+                Assertions.assertEquals(size[1], scaled.getHeight(), scaleType.name());
+                Assertions.assertEquals(
+                        BufferedImage.TYPE_INT_ARGB_PRE, scaled.getType(), scaleType.name());
+                // 遠離邊界的像素需維持原本顏色
+                assertColor(new Color(255, 0, 0, 255), scaled, size[0] / 8, size[1] / 4);
+                assertColor(new Color(0, 0, 255, 255), scaled, size[0] * 5 / 8, size[1] / 4);
+                assertColor(
+                        new Color(0, 255, 0, 128), scaled, size[0] * 15 / 16, size[1] * 7 / 8);
+            }
+        }
+
+        // 逐次減半：僅單一方向大幅縮小
+        BufferedImage wide = new BufferedImage(1000, 10, BufferedImage.TYPE_INT_RGB);
+        graphics = wide.createGraphics();
+        graphics.setColor(new Color(40, 80, 120));
+        graphics.fillRect(0, 0, 1000, 10);
+        graphics.dispose();
+        BufferedImage progressive = ImageScaleUtils.scale(wide, 10, 10, ScaleType.PROGRESSIVE);
+        Assertions.assertEquals(10, progressive.getWidth());
+        Assertions.assertEquals(10, progressive.getHeight());
+        // 不透明圖片縮放後仍為不透明
+        Assertions.assertEquals(BufferedImage.TYPE_INT_RGB, progressive.getType());
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertColor(new Color(40, 80, 120), progressive, x, y);
+            }
+        }
+
+        // 單純排列的預乘透明度圖片直接使用原陣列，其餘圖片需轉換且結果一致
+        int[] packed = ImageScaleUtils.toPremultipliedPixels(source);
+        Assertions.assertSame(
+                ((DataBufferInt) source.getRaster().getDataBuffer()).getData(), packed);
+        BufferedImage subimage = source.getSubimage(16, 8, 32, 16);
+        int[] converted = ImageScaleUtils.toPremultipliedPixels(subimage);
+        Assertions.assertEquals(32 * 16, converted.length);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 32; x++) {
+                Assertions.assertEquals(packed[(y + 8) * 64 + x + 16], converted[y * 32 + x]);
+            }
+        }
+        BufferedImage argb = new BufferedImage(64, 32, BufferedImage.TYPE_INT_ARGB);
+        graphics = argb.createGraphics();
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        BufferedImage scaledPacked = ImageScaleUtils.scale(source, 16, 8, ScaleType.AREA_AVERAGE);
+        BufferedImage scaledArgb = ImageScaleUtils.scale(argb, 16, 8, ScaleType.AREA_AVERAGE);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertColor(new Color(scaledPacked.getRGB(x, y), true), scaledArgb, x, y);
+            }
+        }
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> ImageScaleUtils.scale(source, 0, 8, ScaleType.BILINEAR));
+    }
+
+    private static void assertColor(Color expected, BufferedImage image, int x, int y) {
+        Color actual = new Color(image.getRGB(x, y), true);
+        String message = "(" + x + ", " + y + ") " + actual;
+        Assertions.assertTrue(Math.abs(expected.getRed() - actual.getRed()) <= 2, message);
+        Assertions.assertTrue(Math.abs(expected.getGreen() - actual.getGreen()) <= 2, message);
+        Assertions.assertTrue(Math.abs(expected.getBlue() - actual.getBlue()) <= 2, message);
+        Assertions.assertTrue(Math.abs(expected.getAlpha() - actual.getAlpha()) <= 2, message);
+    }
+
+    /** 測試來源圖檔解碼快取 */
+    @Test
+    public void testSourceImageCache() throws IOException {
+        Path first = Files.createTempFile("easy-image-", ".png");
+        Path second = Files.createTempFile("easy-image-", ".png");
+        try {
+            BufferedImage source = new BufferedImage(40, 30, BufferedImage.TYPE_INT_RGB);
+            ImageIO.write(source, "png", first.toFile());
+            ImageIO.write(source, "png", second.toFile());
+            // PNG解碼為TYPE_3BYTE_BGR
+            long imageBytes = 40 * 30 * 3;
+
+            // 未啟用時每次皆重新解碼
+            SourceImageCache.setMaxBytes(0);
+            Assertions.assertNotSame(
+                    SourceImageCache.read(first.toFile()), SourceImageCache.read(first.toFile()));
+
+            SourceImageCache.setMaxBytes(imageBytes);
+            long missCount = SourceImageCache.getMissCount();
+            long hitCount = SourceImageCache.getHitCount();
+            BufferedImage image = SourceImageCache.read(first.toFile());
+            Assertions.assertSame(image, SourceImageCache.read(first.toFile()));
+            Assertions.assertEquals(missCount + 1, SourceImageCache.getMissCount());
+            Assertions.assertEquals(hitCount + 1, SourceImageCache.getHitCount());
+            Assertions.assertEquals(imageBytes, SourceImageCache.getBytes());
+
+            // 檔案變更後重新解碼
+            ImageIO.write(source, "png", first.toFile());
+            File firstFile = first.toFile();
+            Assertions.assertTrue(firstFile.setLastModified(firstFile.lastModified() + 2000));
+            BufferedImage changed = SourceImageCache.read(first.toFile());
+            Assertions.assertNotSame(image, changed);
+
+            // 超過上限時移除最久未使用的項目
+            long evictionCount = SourceImageCache.getEvictionCount();
+            BufferedImage other = SourceImageCache.read(second.toFile());
+            Assertions.assertTrue(SourceImageCache.getEvictionCount() > evictionCount);
+            Assertions.assertEquals(imageBytes, SourceImageCache.getBytes());
+            Assertions.assertSame(other, SourceImageCache.read(second.toFile()));
+            Assertions.assertNotSame(changed, SourceImageCache.read(first.toFile()));
+        } finally {
+            SourceImageCache.setMaxBytes(0);
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    /** 測試抽樣解碼及讀取圖片大小 */
+    @Test
+    public void testImageRead() throws IOException {
+        // 抽樣後至少保留目標大小的兩倍
+        Assertions.assertEquals(15, ImageReadUtils.getSubsampling(4000, 3000, 100, 100));
+        Assertions.assertEquals(1, ImageReadUtils.getSubsampling(300, 300, 200, 200));
+        Assertions.assertEquals(1, ImageReadUtils.getSubsampling(4000, 3000, 0, 100));
+        Assertions.assertEquals(1, ImageReadUtils.getSubsampling(4000, 3000, 100, 0));
+
+        Path path = Files.createTempFile("easy-image-", ".png");
+        try {
+            ImageIO.write(
+                    new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png", path.toFile());
+            byte[] bytes = Files.readAllBytes(path);
+            Assertions.assertEquals(
+                    new Dimension(400, 300), ImageReadUtils.readSize(path.toFile()));
+            Assertions.assertEquals(
+                    new Dimension(400, 300), ImageReadUtils.readSize(ByteBuffer.wrap(bytes)));
+
+            // 抽樣倍數為min(400 / 100, 300 / 100) = 3
+            BufferedImage subsampled = ImageReadUtils.read(path.toFile(), 50, 50);
+            Assertions.assertEquals(134, subsampled.getWidth());
+            Assertions.assertEquals(100, subsampled.getHeight());
+            BufferedImage full = ImageReadUtils.read(ByteBuffer.wrap(bytes), 400, 0);
+            Assertions.assertEquals(400, full.getWidth());
+            Assertions.assertEquals(300, full.getHeight());
+
+            // 非圖檔回傳null，無法讀取的檔案拋出例外
+            byte[] text = "not an image".getBytes(StandardCharsets.UTF_8);
+            Assertions.assertNull(ImageReadUtils.readSize(ByteBuffer.wrap(text)));
+            Assertions.assertNull(ImageReadUtils.read(ByteBuffer.wrap(text), 0, 0));
+            Assertions.assertThrows(
+                    IOException.class,
+                    () -> ImageReadUtils.readSize(new File(path + ".missing")));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /** 測試縮放圖片快取 */
+    @Test
+    public void testScaledImageCache() throws ImageException, IOException, URISyntaxException {
+        URL testImageUrl = EasyImageTests.class.getResource("test.jpg");
+        if (null == testImageUrl) {
+            throw new IOException("查無測試檔案");
+        }
+        ImageBuilder imageBuilder =
+                EasyImage.init(200, 200)
+                        .add(
+                                0,
+                                0,
+                                Image.init(new File(testImageUrl.toURI()))
+                                        .setWidth(123)
+                                        .setHeight(77)
+                                        .build());
+        imageBuilder.buildBytes(OutputType.PNG);
+        long hitCount = ScaledImageCache.getHitCount();
+        imageBuilder.buildBytes(OutputType.PNG);
+        Assertions.assertTrue(ScaledImageCache.getHitCount() > hitCount);
+
+        // 記憶體內容以內容識別，每次重新建立的相同內容共用快取
+        byte[] bytes = Files.readAllBytes(Paths.get(testImageUrl.toURI()));
+        Image first = Image.init(bytes.clone()).build();
+        Image second = Image.init(ByteBuffer.wrap(bytes.clone())).build();
+        Assertions.assertEquals(first.getSourceKey(), second.getSourceKey());
+        byte[] changed = bytes.clone();
+        changed[changed.length - 1] ^= 1;
+        Assertions.assertNotEquals(
+                first.getSourceKey(), Image.init(changed).build().getSourceKey());
+        EasyImage.init(200, 200)
+                .add(0, 0, Image.init(bytes.clone()).setWidth(91).setHeight(57).build())
+                .buildBytes(OutputType.PNG);
+        hitCount = ScaledImageCache.getHitCount();
+        long bytesBefore = ScaledImageCache.getBytes();
+        EasyImage.init(200, 200)
+                .add(0, 0, Image.init(bytes.clone()).setWidth(91).setHeight(57).build())
+                .buildBytes(OutputType.PNG);
+        Assertions.assertEquals(hitCount + 1, ScaledImageCache.getHitCount());
+        Assertions.assertEquals(bytesBefore, ScaledImageCache.getBytes());
+    }
+
+    /** 測試由記憶體內容及檔案路徑建立圖片 */
+    @Test
+    public void testImageSource() throws ImageException, IOException, URISyntaxException {
+        URL testImageUrl = EasyImageTests.class.getResource("test.jpg");
+        if (null == testImageUrl) {
+            throw new IOException("查無測試檔案");
+        }
+        Path path = Paths.get(testImageUrl.toURI());
+        byte[] bytes = Files.readAllBytes(path);
+        Image fromPath = Image.init(path).build();
+        Image fromBytes = Image.init(bytes).build();
+        Image fromBuffer = Image.init(ByteBuffer.wrap(bytes)).build();
+        Assertions.assertEquals(fromPath.getSourceWidth(), fromBytes.getSourceWidth());
+        Assertions.assertEquals(fromPath.getSourceHeight(), fromBuffer.getSourceHeight());
+        Assertions.assertEquals(
+                fromBytes.getBufferedImage().getRGB(10, 10),
+                fromPath.getBufferedImage().getRGB(10, 10));
+
+        // 超過2GB無法映射的檔案改由檔案串流讀取(稀疏檔案，僅檔頭有內容)
+        Path large = Files.createTempFile("easy-image-", ".jpg");
+        try {
+            Files.write(large, bytes);
+            try (RandomAccessFile file = new RandomAccessFile(large.toFile(), "rw")) {
+                file.setLength(Integer.MAX_VALUE + 1L);
+            }
+            Image fromLarge = Image.init(large).build();
+            Assertions.assertEquals(fromPath.getSourceWidth(), fromLarge.getSourceWidth());
+            Assertions.assertEquals(fromPath.getSourceHeight(), fromLarge.getSourceHeight());
+        } finally {
+            Files.deleteIfExists(large);
+        }
+    }
+
+    /** 測試圖片建立時僅讀取檔頭，於繪製時才解碼 */
+    @Test
+    public void testImageLazyDecode() throws ImageException, IOException {
+        Path path = Files.createTempFile("easy-image-", ".png");
+        try {
+            BufferedImage source = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+            Random random = new Random(1);
+            for (int y = 0; y < 200; y++) {
+                for (int x = 0; x < 300; x++) {
+                    source.setRGB(x, y, random.nextInt());
+                }
+            }
+            ImageIO.write(source, "png", path.toFile());
+            byte[] bytes = Files.readAllBytes(path);
+
+            // 僅保留檔頭時仍可取得大小，解碼時才失敗
+            Image truncated = Image.init(Arrays.copyOf(bytes, 64)).build();
+            Assertions.assertEquals(300, truncated.getSourceWidth());
+            Assertions.assertEquals(200, truncated.getSourceHeight());
+            Assertions.assertThrows(ImageException.class, truncated::getBufferedImage);
+            Assertions.assertThrows(
+                    ImageException.class,
+                    () -> Image.init("not an image".getBytes(StandardCharsets.UTF_8)));
+
+            // 建立時不經過解碼快取，取得圖片時才解碼
+            SourceImageCache.setMaxBytes(64L * 1024 * 1024);
+            SourceImageCache.clear();
+            long missCount = SourceImageCache.getMissCount();
+            Image image = Image.init(path.toFile()).build();
+            Assertions.assertEquals(300, image.getSourceWidth());
+            Assertions.assertEquals(missCount, SourceImageCache.getMissCount());
+            Assertions.assertEquals(0, SourceImageCache.getBytes());
+            Assertions.assertEquals(source.getRGB(7, 9), image.getBufferedImage().getRGB(7, 9));
+            Assertions.assertEquals(missCount + 1, SourceImageCache.getMissCount());
+        } finally {
+            SourceImageCache.setMaxBytes(0);
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /** 測試文字斷行 */
+    @Test
+    public void testWrap() {
+        Font font = new Font("Arial", Font.PLAIN, 20);
+        FontAdvanceTable advanceTable = FontAdvanceTable.of(font);
+        Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics fontMetrics = graphics.getFontMetrics(font);
+        graphics.dispose();
+        Assertions.assertSame(advanceTable, FontAdvanceTable.of(font));
+        Assertions.assertEquals(
+                fontMetrics.stringWidth("hello world"), advanceTable.stringWidth("hello world"));
+        Assertions.assertEquals(fontMetrics.getHeight(), advanceTable.getHeight());
+        int maxWidth = advanceTable.stringWidth("hello world");
+        Assertions.assertEquals(
+                Arrays.asList("hello world", "foo", "", "bar"),
+                TextUtils.wrap("hello world foo\n\nbar\n", advanceTable, maxWidth));
+        Assertions.assertEquals(
+                Arrays.asList("hello", "hello"),
+                TextUtils.wrap("hellohello", advanceTable, advanceTable.stringWidth("hello")));
+    }
+
+    /** 測試自動縮小字體大小及快取 */
+    @Test
+    public void testAutoScaleFontSize() {
+        Font font = new Font("Arial", Font.PLAIN, 60);
+        String text = "hello world\nfoo";
+        for (int availableWidth : new int[] {1, 37, 120, 211, 500, 10000}) {
+            // 與逐一縮小字體的結果相同
+            int expected = font.getSize();
+            while (expected > 1
+                    && FontAdvanceTable.of(FontRegistry.derive(font, expected))
+                                    .stringWidth("hello world")
+                            >= availableWidth) {
+                expected--;
+            }
+            int size = TextUtils.getAutoScaleFontSize(font, text, availableWidth);
+            Assertions.assertEquals(expected, size, "availableWidth=" + availableWidth);
+            Assertions.assertEquals(
+                    size, TextUtils.getAutoScaleFontSize(font, text, availableWidth));
+        }
+
+        // 快取依權重移除最久未使用的項目
+        LruCache<String, Integer> cache = new LruCache<>(3, value -> value);
+        cache.put("a", 1);
+        cache.put("b", 1);
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertNull(cache.get("c"));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        cache.put("c", 2);
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertEquals(3, cache.getWeight());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        cache.setMaxWeight(2);
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertNull(cache.get("c"));
+        Assertions.assertEquals(1, cache.get("a"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.setMaxWeight(-1));
+    }
+
+    /** 測試字體註冊 */
+    @Test
+    public void testFontRegistry() throws ImageException {
+        FontRegistry.register("brand", Font.PLAIN, new Font("Arial", Font.PLAIN, 1));
+        Font font = FontRegistry.getFont("brand", Font.BOLD, 24);
+        Assertions.assertSame(font, FontRegistry.getFont("brand", Font.BOLD, 24));
+        Assertions.assertEquals("Arial", font.getName());
+        Assertions.assertTrue(font.isBold());
+        Assertions.assertEquals(24, font.getSize());
+        Assertions.assertSame(FontRegistry.derive(font, 12), FontRegistry.derive(font, 12));
+        Assertions.assertThrows(
+                ImageException.class,
+                () -> FontRegistry.registerResource("missing", "fonts/missing.ttf"));
+        Text text = Text.init("Alice").setFont("brand", Font.BOLD, 24).build();
+        Assertions.assertSame(font, text.getFont());
+
+        // 重新註冊後不可再取得舊字體衍生的結果及以字體為鍵值的快取
+        Font derived = FontRegistry.derive(font, 12);
+        FontAdvanceTable advanceTable = FontAdvanceTable.of(font);
+        TextLayout textLayout =
+                TextLayoutCache.get(font, "Alice", FontAdvanceTable.FONT_RENDER_CONTEXT);
+        FontRegistry.register("brand", Font.PLAIN, new Font("Arial", Font.PLAIN, 1));
+        Font reloaded = FontRegistry.getFont("brand", Font.BOLD, 24);
+        Assertions.assertNotSame(font, reloaded);
+        Assertions.assertNotSame(derived, FontRegistry.derive(reloaded, 12));
+        Assertions.assertNotSame(advanceTable, FontAdvanceTable.of(reloaded));
+        Assertions.assertNotSame(
+                textLayout,
+                TextLayoutCache.get(reloaded, "Alice", FontAdvanceTable.FONT_RENDER_CONTEXT));
+    }
+
+    /** 測試文字排版快取 */
+    @Test
+    public void testTextLayoutCache() throws ImageException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(200, 50, Color.WHITE)
+                        .add(
+                                0,
+                                0,
+                                Text.init("Price")
+                                        .setFont(new Font("Arial", Font.PLAIN, 20))
+                                        .build());
+        imageBuilder.buildBytes(OutputType.PNG);
+        long hitCount = TextLayoutCache.getHitCount();
+        imageBuilder.buildBytes(OutputType.PNG);
+        Assertions.assertTrue(TextLayoutCache.getHitCount() > hitCount);
+    }
+
+    /** 測試編碼參數 */
+    @Test
+    public void testEncoderOptions() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(120, 80, Color.WHITE)
+                        .add(
+                                10,
+                                10,
+                                Ellipse.init(60, 40).setColor(new Color(200, 30, 30, 128)).build())
+                        .add(20, 40, Text.init("Alice").setColor(Color.BLUE).build());
+        BufferedImage expected =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        for (PngFilter filter : PngFilter.values()) {
+            byte[] bytes =
+                    imageBuilder.buildBytes(
+                            OutputType.PNG,
+                            EncoderOptions.init()
+                                    .setPngCompressionLevel(1)
+                                    .setPngFilter(filter)
+                                    .build());
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(bytes));
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+                }
+            }
+        }
+
+        byte[] low =
+                imageBuilder.buildBytes(
+                        OutputType.JPG, EncoderOptions.init().setJpegQuality(0.2f).build());
+        byte[] high =
+                imageBuilder.buildBytes(
+                        OutputType.JPG,
+                        EncoderOptions.init()
+                                .setJpegQuality(0.95f)
+                                .setJpegProgressive(true)
+                                .setChromaSubsampling(ChromaSubsampling.YUV_444)
+                                .build());
+        Assertions.assertTrue(low.length < high.length);
+        Assertions.assertEquals(120, ImageIO.read(new ByteArrayInputStream(high)).getWidth());
+    }
+
+    /** 測試像素格式 */
+    @Test
+    public void testPixelFormat() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(40, 30, Color.WHITE)
+                        .add(5, 5, Rectangle.init(10, 10).setColor(Color.RED).build());
+        BufferedImage jpg =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.JPG)));
+        Assertions.assertFalse(jpg.getColorModel().hasAlpha());
+        BufferedImage png =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        Assertions.assertTrue(png.getColorModel().hasAlpha());
+        Assertions.assertEquals(Color.RED.getRGB(), png.getRGB(10, 10));
+        imageBuilder.setPixelFormat(PixelFormat.INT_RGB);
+        png = ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        Assertions.assertFalse(png.getColorModel().hasAlpha());
+        Assertions.assertEquals(Color.RED.getRGB(), png.getRGB(10, 10));
+    }
+
+    /** 測試PNG8調色盤輸出 */
+    @Test
+    public void testPng8() throws ImageException, IOException {
+        ImageBuilder badge =
+                EasyImage.init(60, 30, new Color(0, 0, 0, 0))
+                        .add(
+                                0,
+                                0,
+                                Rectangle.init(60, 30)
+                                        .setColor(new Color(0, 128, 255, 200))
+                                        .build())
+                        .add(5, 5, Rectangle.init(10, 10).setColor(Color.WHITE).build());
+        BufferedImage png8 =
+                ImageIO.read(new ByteArrayInputStream(badge.buildBytes(OutputType.PNG8)));
+        Assertions.assertTrue(png8.getColorModel() instanceof IndexColorModel);
+        BufferedImage png =
+                ImageIO.read(new ByteArrayInputStream(badge.buildBytes(OutputType.PNG)));
+        for (int y = 0; y < png.getHeight(); y++) {
+            for (int x = 0; x < png.getWidth(); x++) {
+                // 顏色數未超過上限時使用原始顏色，僅可能有還原預乘透明度的誤差
+                int expected = png.getRGB(x, y);
+                int actual = png8.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    Assertions.assertTrue(
+                            Math.abs(((expected >>> shift) & 0xFF) - ((actual >>> shift) & 0xFF))
+                                    <= 1);
+                }
+            }
+        }
+
+        BufferedImage gradient = new BufferedImage(256, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < gradient.getHeight(); y++) {
+            for (int x = 0; x < gradient.getWidth(); x++) {
+                gradient.setRGB(x, y, new Color(x, y * 4, 255 - x, 128 + y).getRGB());
+            }
+        }
+        for (boolean dither : new boolean[] {false, true}) {
+            BufferedImage quantized = ColorQuantizer.quantize(gradient, 64, dither);
+            Assertions.assertTrue(((IndexColorModel) quantized.getColorModel()).getMapSize() <= 64);
+            Color expected = new Color(gradient.getRGB(100, 30), true);
+            Color actual = new Color(quantized.getRGB(100, 30), true);
+            Assertions.assertTrue(Math.abs(expected.getRed() - actual.getRed()) < 48);
+            Assertions.assertTrue(Math.abs(expected.getAlpha() - actual.getAlpha()) < 48);
+        }
+    }
+
+    /** 測試輸出至緩衝區及通道 */
+    @Test
+    public void testByteBufferOutput() throws ImageException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(10, 10, Text.init("Order #1").setColor(Color.BLACK).build());
+        byte[] expected = imageBuilder.buildBytes(OutputType.PNG);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        imageBuilder.buildTo(OutputType.PNG, Channels.newChannel(outputStream));
+        Assertions.assertArrayEquals(expected, outputStream.toByteArray());
+
+        // 預設配置heap緩衝區
+        ByteBuffer heapBuffer = imageBuilder.buildByteBuffer(OutputType.PNG);
+        Assertions.assertFalse(heapBuffer.isDirect());
+        Assertions.assertEquals(expected.length, heapBuffer.remaining());
+        // 回傳的緩衝區不保留大量未使用容量
+        Assertions.assertTrue(heapBuffer.capacity() < expected.length * 2);
+
+        List<ByteBuffer> released = new ArrayList<>();
+        ByteBufferAllocator allocator =
+                new ByteBufferAllocator() {
+                    @Override
+                    public ByteBuffer allocate(int capacity) {
+                        return ByteBuffer.allocateDirect(capacity);
+                    }
+
+                    @Override
+                    public void release(ByteBuffer buffer) {
+                        released.add(buffer);
+                    }
+                };
+        // 不壓縮時輸出大於初始容量，確認擴充時會交還舊緩衝區
+        EncoderOptions options = EncoderOptions.init().setPngCompressionLevel(0).build();
+        ByteBuffer buffer = imageBuilder.buildByteBuffer(OutputType.PNG, options, allocator);
+        byte[] actual = new byte[buffer.remaining()];
+        buffer.get(actual);
+        Assertions.assertArrayEquals(imageBuilder.buildBytes(OutputType.PNG, options), actual);
+        Assertions.assertFalse(released.isEmpty());
+
+        // 編碼失敗時已配置的緩衝區皆需交還
+        Set<ByteBuffer> outstanding = Collections.newSetFromMap(new IdentityHashMap<>());
+        ByteBufferAllocator failing =
+                new ByteBufferAllocator() {
+                    @Override
+                    public ByteBuffer allocate(int capacity) {
+                        if (!outstanding.isEmpty()) {
+                            throw new IllegalStateException("測試配置失敗");
+                        }
+                        ByteBuffer allocated = ByteBuffer.allocate(capacity);
+                        outstanding.add(allocated);
+                        return allocated;
+                    }
+
+                    @Override
+                    public void release(ByteBuffer buffer) {
+                        outstanding.remove(buffer);
+                    }
+                };
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> imageBuilder.buildByteBuffer(OutputType.PNG, options, failing));
+        Assertions.assertTrue(outstanding.isEmpty());
+    }
+
+    /** 測試Base64及Data URI輸出 */
+    @Test
+    public void testBase64Output() throws ImageException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(120, 60, Color.WHITE)
+                        .add(10, 10, Text.init("Hello").setSlotName("name").build());
+        String expected =
+                Base64.getEncoder().encodeToString(imageBuilder.buildBytes(OutputType.PNG));
+        Assertions.assertEquals(expected, imageBuilder.buildBase64(OutputType.PNG));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        imageBuilder.buildDataUri(OutputType.PNG, EncoderOptions.DEFAULT, outputStream);
+        Assertions.assertEquals(
+                "data:image/png;base64," + expected,
+                outputStream.toString(StandardCharsets.US_ASCII));
+
+        ImageTemplate template = imageBuilder.compile();
+        Map<String, String> slotValues = Collections.singletonMap("name", "Bob");
+        StringWriter writer = new StringWriter();
+        template.appendDataUri(OutputType.JPG, EncoderOptions.DEFAULT, slotValues, writer);
+        Assertions.assertEquals(
+                "data:image/jpeg;base64,"
+                        + Base64.getEncoder()
+                                .encodeToString(template.buildBytes(OutputType.JPG, slotValues)),
+                writer.toString());
+    }
+
+    /** 測試繪製一次多種輸出 */
+    @Test
+    public void testRenderedFrame() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(400, 200, Color.WHITE)
+                        .add(20, 20, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .add(30, 40, Text.init("Alice").setSlotName("name").build());
+        RenderedFrame frame = imageBuilder.render();
+        Assertions.assertArrayEquals(
+                imageBuilder.buildBytes(OutputType.PNG), frame.buildBytes(OutputType.PNG));
+        BufferedImage jpg =
+                ImageIO.read(new ByteArrayInputStream(frame.buildBytes(OutputType.JPG)));
+        Assertions.assertEquals(400, jpg.getWidth());
+
+        // 與ImageBuilder相同的輸出方式
+        byte[] png = frame.buildBytes(OutputType.PNG);
+        ByteArrayOutputStream channelOutput = new ByteArrayOutputStream();
+        frame.buildTo(OutputType.PNG, Channels.newChannel(channelOutput));
+        Assertions.assertArrayEquals(png, channelOutput.toByteArray());
+        ByteBuffer buffer = frame.buildByteBuffer(OutputType.PNG);
+        byte[] bufferBytes = new byte[buffer.remaining()];
+        buffer.get(bufferBytes);
+        Assertions.assertArrayEquals(png, bufferBytes);
+        String base64 = Base64.getEncoder().encodeToString(png);
+        Assertions.assertEquals(
+                base64, frame.buildBase64(OutputType.PNG, EncoderOptions.DEFAULT));
+        ByteArrayOutputStream base64Output = new ByteArrayOutputStream();
+        frame.buildBase64(OutputType.PNG, EncoderOptions.DEFAULT, base64Output);
+        Assertions.assertEquals(base64, base64Output.toString(StandardCharsets.US_ASCII));
+        String dataUri = "data:image/png;base64," + base64;
+        Assertions.assertEquals(
+                dataUri, frame.buildDataUri(OutputType.PNG, EncoderOptions.DEFAULT));
+        ByteArrayOutputStream dataUriOutput = new ByteArrayOutputStream();
+        frame.buildDataUri(OutputType.PNG, EncoderOptions.DEFAULT, dataUriOutput);
+        Assertions.assertEquals(dataUri, dataUriOutput.toString(StandardCharsets.US_ASCII));
+        StringWriter writer = new StringWriter();
+        frame.appendDataUri(OutputType.PNG, EncoderOptions.DEFAULT, writer);
+        Assertions.assertEquals(dataUri, writer.toString());
+
+        RenderedFrame half = frame.scale(0.5);
+        Assertions.assertEquals(200, half.getWidth());
+        Assertions.assertEquals(100, half.getHeight());
+        BufferedImage thumbnail =
+                ImageIO.read(
+                        new ByteArrayInputStream(
+                                frame.scale(40, 20).buildBytes(OutputType.PNG)));
+        Assertions.assertEquals(40, thumbnail.getWidth());
+        Assertions.assertEquals(Color.WHITE.getRGB(), thumbnail.getRGB(39, 19));
+
+        RenderedFrame templateFrame =
+                imageBuilder.compile().render(Collections.singletonMap("name", "Bob"));
+        Assertions.assertEquals(400, templateFrame.getWidth());
+    }
+
+    /** 測試靜態底圖 */
+    @Test
+    public void testStaticLayer() throws ImageException {
+        ImageBuilder plain =
+                EasyImage.init(300, 200, Color.WHITE)
+                        .add(10, 10, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .add(20, 20, Ellipse.init(80, 80).setColor(Color.BLUE).build())
+                        .add(30, 40, Text.init("Alice").build());
+        ImageBuilder layered =
+                EasyImage.init(300, 200, Color.WHITE)
+                        .add(
+                                10,
+                                10,
+                                Rectangle.init(200, 100)
+                                        .setColor(Color.ORANGE)
+                                        .setIsStatic(true)
+                                        .build())
+                        .add(
+                                20,
+                                20,
+                                Ellipse.init(80, 80)
+                                        .setColor(Color.BLUE)
+                                        .setIsStatic(true)
+                                        .build())
+                        .add(30, 40, Text.init("Alice").build());
+        byte[] expected = plain.buildBytes(OutputType.PNG);
+        Assertions.assertArrayEquals(expected, layered.buildBytes(OutputType.PNG));
+        // 第二次繪製使用快取的底圖
+        Assertions.assertArrayEquals(expected, layered.buildBytes(OutputType.PNG));
+        Assertions.assertArrayEquals(
+                plain.buildBytes(OutputType.JPG), layered.buildBytes(OutputType.JPG));
+
+        // 建立底圖後修改靜態物件需重新建立底圖
+        Rectangle background =
+                Rectangle.init(200, 100).setColor(Color.ORANGE).setIsStatic(true).build();
+        ImageBuilder mutated =
+                EasyImage.init(300, 200, Color.WHITE)
+                        .add(
+                                10,
+                                10,
+                                Rectangle.init(200, 100)
+                                        .setColor(Color.GREEN)
+                                        .setIsStatic(true)
+                                        .build())
+                        .add(30, 40, Text.init("Alice").build());
+        ImageBuilder mutable =
+                EasyImage.init(300, 200, Color.WHITE)
+                        .add(10, 10, background)
+                        .add(30, 40, Text.init("Alice").build());
+        Assertions.assertFalse(
+                Arrays.equals(
+                        mutated.buildBytes(OutputType.PNG), mutable.buildBytes(OutputType.PNG)));
+        background.setColor(Color.GREEN);
+        Assertions.assertArrayEquals(
+                mutated.buildBytes(OutputType.PNG), mutable.buildBytes(OutputType.PNG));
+
+        // 樣板自動將第一個樣板欄位之前的物件合成為底圖
+        ImageTemplate template =
+                EasyImage.init(300, 200, Color.WHITE)
+                        .add(10, 10, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .add(20, 20, Ellipse.init(80, 80).setColor(Color.BLUE).build())
+                        .add(30, 40, Text.init("Alice").setSlotName("name").build())
+                        .compile();
+        Assertions.assertArrayEquals(
+                expected, template.buildBytes(OutputType.PNG, Collections.emptyMap()));
+        Assertions.assertArrayEquals(
+                expected, template.buildBytes(OutputType.PNG, Collections.emptyMap()));
+    }
+
+    /** 測試組合物件 */
+    @Test
+    public void testComposite() throws ImageException, IOException {
+        CompositeCache.clear();
+        long missCount = CompositeCache.getMissCount();
+        long hitCount = CompositeCache.getHitCount();
+        for (int i = 0; i < 3; i++) {
+            // 每次建立內容相同的新區塊，只有第一次需要繪製
+            ImageBuilder badge =
+                    EasyImage.init(60, 40, new Color(0, 0, 0, 0))
+                            .add(0, 0, Rectangle.init(60, 40).setColor(Color.ORANGE).build())
+                            .add(5, 5, Text.init("Bob").build());
+            ImageBuilder parent =
+                    EasyImage.init(200, 100, Color.WHITE)
+                            .add(10, 10, Composite.init(badge).build())
+                            .add(100, 10, Composite.init(badge, 30, 20).build());
+            BufferedImage image =
+                    ImageIO.read(new ByteArrayInputStream(parent.buildBytes(OutputType.PNG)));
+            Assertions.assertEquals(Color.ORANGE.getRGB(), image.getRGB(60, 45));
+            Assertions.assertEquals(Color.ORANGE.getRGB(), image.getRGB(125, 25));
+            Assertions.assertEquals(Color.WHITE.getRGB(), image.getRGB(135, 35));
+        }
+        Assertions.assertEquals(missCount + 1, CompositeCache.getMissCount());
+        Assertions.assertTrue(CompositeCache.getHitCount() > hitCount);
+
+        // 畫布外及被遮蔽的組合物件不會繪製
+        ImageBuilder hidden =
+                EasyImage.init(40, 40, Color.GREEN)
+                        .add(0, 0, Rectangle.init(40, 40).setColor(Color.GREEN).build());
+        RenderedFrame frame =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(500, 10, Composite.init(hidden).build())
+                        .add(10, 10, Composite.init(hidden).build())
+                        .add(0, 0, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .render();
+        Assertions.assertEquals(2, frame.getCulledCount());
+        Assertions.assertEquals(missCount + 1, CompositeCache.getMissCount());
+
+        // 組合物件直接或間接包含自身時拋出例外
+        ImageBuilder self = EasyImage.init(50, 50);
+        self.add(0, 0, Composite.init(self).build());
+        Assertions.assertThrows(ImageException.class, self::render);
+        ImageBuilder first = EasyImage.init(50, 50);
+        ImageBuilder second = EasyImage.init(50, 50).add(0, 0, Composite.init(first).build());
+        first.add(0, 0, Composite.init(second).build());
+        Assertions.assertThrows(
+                ImageException.class,
+                () ->
+                        EasyImage.init(100, 100)
+                                .add(0, 0, Composite.init(first).build())
+                                .buildBytes(OutputType.PNG));
+    }
+
+    /** 測試超大畫布分段繪製 */
+    @Test
+    public void testBandRendering() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(300, 250, Color.WHITE)
+                        .add(10, 10, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .add(40, 30, Ellipse.init(90, 150).setColor(Color.BLUE).build())
+                        .add(20, 95, Text.init("Alice").setFont("Dialog", Font.PLAIN, 20).build());
+        BufferedImage expected =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        // 分段邊界穿過各物件，最後一段高度不足
+        imageBuilder.setBandHeight(32);
+        BufferedImage banded =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                // 跨越分段的曲線邊緣抗鋸齒可能有些微差異
+                int a = expected.getRGB(x, y);
+                int b = banded.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    Assertions.assertTrue(
+                            Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF)) <= 32);
+                }
+            }
+        }
+        Assertions.assertEquals(Color.ORANGE.getRGB(), banded.getRGB(200, 100));
+
+        ImageBuilder transparent =
+                EasyImage.init(100, 100, new Color(0, 0, 0, 0))
+                        .add(0, 50, Rectangle.init(100, 50).setColor(Color.ORANGE).build())
+                        .setBandHeight(16);
+        banded = ImageIO.read(new ByteArrayInputStream(transparent.buildBytes(OutputType.PNG)));
+        Assertions.assertEquals(0, banded.getRGB(10, 40) >>> 24);
+        Assertions.assertEquals(Color.ORANGE.getRGB(), banded.getRGB(10, 99));
+        Assertions.assertThrows(ImageException.class, () -> transparent.buildBytes(OutputType.JPG));
+    }
+
+    /** 測試多執行緒PNG壓縮 */
+    @Test
+    public void testParallelDeflate() throws ImageException, IOException {
+        // 雜訊圖片使壓縮資料跨越多個區塊
+        BufferedImage noise = new BufferedImage(600, 400, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(1);
+        for (int y = 0; y < noise.getHeight(); y++) {
+            for (int x = 0; x < noise.getWidth(); x++) {
+                noise.setRGB(x, y, random.nextInt(8) == 0 ? random.nextInt() : 0xFF336699);
+            }
+        }
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        ImageIO.write(noise, "png", source);
+        ImageBuilder imageBuilder =
+                EasyImage.init(600, 400, Color.WHITE)
+                        .add(0, 0, Image.init(source.toByteArray()).build());
+        byte[] serial =
+                imageBuilder.buildBytes(
+                        OutputType.PNG, EncoderOptions.init().setPngCompressionLevel(6).build());
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(serial));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int level : new int[] {0, 6, 9}) {
+                byte[] parallel =
+                        imageBuilder.buildBytes(
+                                OutputType.PNG,
+                                EncoderOptions.init()
+                                        .setPngCompressionLevel(level)
+                                        .setPngDeflateThreads(4)
+                                        .setDeflateExecutor(executor)
+                                        .build());
+                BufferedImage actual = ImageIO.read(new ByteArrayInputStream(parallel));
+                for (int y = 0; y < expected.getHeight(); y++) {
+                    for (int x = 0; x < expected.getWidth(); x++) {
+                        Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // 分段繪製同樣使用平行壓縮
+        imageBuilder.setBandHeight(64);
+        byte[] banded =
+                imageBuilder.buildBytes(
+                        OutputType.PNG, EncoderOptions.init().setPngDeflateThreads(2).build());
+        Assertions.assertEquals(
+                expected.getRGB(599, 399),
+                ImageIO.read(new ByteArrayInputStream(banded)).getRGB(599, 399));
+    }
+
+    /** 測試平行繪製 */
+    @Test
+    public void testParallelRender() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(400, 300, Color.WHITE)
+                        .add(
+                                0,
+                                0,
+                                Rectangle.init(400, 40)
+                                        .setColor(Color.DARK_GRAY)
+                                        .setIsStatic(true)
+                                        .build());
+        Random random = new Random(2);
+        for (int i = 0; i < 200; i++) {
+            // 物件大小不一，多數跨越分段邊界
+            int x = random.nextInt(380);
+            int y = random.nextInt(280);
+            Color color = new Color(random.nextInt(), true);
+            if (i % 3 == 0) {
+                imageBuilder.add(x, y, Text.init("Bob").setColor(color).build());
+            } else if (i % 3 == 1) {
+                imageBuilder.add(
+                        x, y, Rectangle.init(20 + i % 60, 10 + i % 90).setColor(color).build());
+            } else {
+                imageBuilder.add(
+                        x, y, Ellipse.init(10 + i % 50, 10 + i % 70).setColor(color).build());
+            }
+        }
+        BufferedImage expected =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        imageBuilder.setRenderParallelism(4);
+        BufferedImage parallel =
+                ImageIO.read(new ByteArrayInputStream(imageBuilder.buildBytes(OutputType.PNG)));
+        int differentCount = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int a = expected.getRGB(x, y);
+                int b = parallel.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF));
+                    // 跨越分段的曲線邊緣抗鋸齒可能有些微差異
+                    Assertions.assertTrue(difference <= 48);
+                }
+                if (a != b) {
+                    differentCount++;
+                }
+            }
+        }
+        Assertions.assertTrue(differentCount < expected.getWidth() * expected.getHeight() / 100);
+    }
+
+    /** 測試略過畫布外及被遮蓋的物件 */
+    @Test
+    public void testCulling() throws ImageException, IOException {
+        ImageBuilder imageBuilder =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(20, 20, Ellipse.init(50, 50).setColor(Color.BLUE).build())
+                        .add(500, 0, Rectangle.init(40, 40).setColor(Color.RED).build())
+                        .add(-1000, 10, Text.init("Alice").build())
+                        // 滿版不透明背景遮蔽前面的橢圓
+                        .add(0, 0, Rectangle.init(200, 100).setColor(Color.ORANGE).build())
+                        .add(10, 10, Text.init("Bob").build());
+        RenderedFrame frame = imageBuilder.render();
+        // 橢圓、畫布外的矩形、畫布外的文字及其背景、透明的文字背景
+        Assertions.assertEquals(5, frame.getCulledCount());
+        Assertions.assertEquals(
+                5, imageBuilder.compile().render(Collections.emptyMap()).getCulledCount());
+        BufferedImage image =
+                ImageIO.read(new ByteArrayInputStream(frame.buildBytes(OutputType.PNG)));
+        Assertions.assertEquals(Color.ORANGE.getRGB(), image.getRGB(45, 45));
+
+        // 半透明的物件不會遮蔽
+        ImageBuilder translucent =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(20, 20, Ellipse.init(50, 50).setColor(Color.BLUE).build())
+                        .add(
+                                0,
+                                0,
+                                Rectangle.init(200, 100)
+                                        .setColor(new Color(255, 200, 0, 128))
+                                        .build());
+        Assertions.assertEquals(0, translucent.render().getCulledCount());
+
+        BufferedImage green = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = green.createGraphics();
+        graphics.setColor(Color.GREEN);
+        graphics.fillRect(0, 0, 100, 100);
+        graphics.dispose();
+        ByteArrayOutputStream greenBytes = new ByteArrayOutputStream();
+        ImageIO.write(green, "png", greenBytes);
+
+        // 縮放後的不透明圖片仍會遮蔽
+        RenderedFrame background =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(20, 20, Ellipse.init(50, 50).setColor(Color.BLUE).build())
+                        .add(
+                                0,
+                                0,
+                                Image.init(greenBytes.toByteArray())
+                                        .setWidth(200)
+                                        .setHeight(100)
+                                        .build())
+                        .render();
+        Assertions.assertEquals(1, background.getCulledCount());
+
+        // 僅設定單邊大小時以原始大小繪製，範圍不可依設定的大小計算
+        RenderedFrame singleSide =
+                EasyImage.init(200, 100, Color.WHITE)
+                        .add(150, 10, Rectangle.init(20, 20).setColor(Color.RED).build())
+                        .add(0, 0, Image.init(greenBytes.toByteArray()).setWidth(300).build())
+                        .add(-60, 0, Image.init(greenBytes.toByteArray()).setWidth(40).build())
+                        .render();
+        Assertions.assertEquals(0, singleSide.getCulledCount());
+        image = ImageIO.read(new ByteArrayInputStream(singleSide.buildBytes(OutputType.PNG)));
+        Assertions.assertEquals(Color.GREEN.getRGB(), image.getRGB(50, 50));
+        Assertions.assertEquals(Color.RED.getRGB(), image.getRGB(160, 20));
     }
 }